@@ -0,0 +1,16 @@
+package com.gds.service;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Spring Boot entry point for the prime microservice.
+ * <p/>
+ */
+@SpringBootApplication
+public class PrimeServiceApplication {
+
+    public static void main(final String[] args) {
+        SpringApplication.run(PrimeServiceApplication.class, args);
+    }
+}
@@ -0,0 +1,45 @@
+package com.gds.service.config;
+
+import com.gds.service.prime.Initialisation;
+import com.gds.service.prime.OptimisedReadTimePrimeGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Provides the prime generator behind the endpoints. The prime table embedded in the jar by the build is loaded
+ * when it covers the configured sieve size, so startup does no sieving; otherwise the cache is sieved, eagerly or
+ * in the background as configured.
+ * <p/>
+ */
+@Configuration
+public class PrimeGeneratorConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PrimeGeneratorConfiguration.class);
+
+    @Bean
+    public OptimisedReadTimePrimeGenerator primeGenerator(
+            @Value("${prime.table-resource}") final String tableResource,
+            @Value("${prime.sieve-size}") final int sieveSize,
+            @Value("${prime.initialisation}") final Initialisation initialisation,
+            @Value("${prime.watermark-timeout-millis}") final long watermarkTimeoutMillis) throws IOException {
+
+        if (!tableResource.isEmpty() && PrimeGeneratorConfiguration.class.getResource(tableResource) != null) {
+            final OptimisedReadTimePrimeGenerator generator = new OptimisedReadTimePrimeGenerator(tableResource);
+            if (generator.sievedUpTo() >= sieveSize) {
+                LOG.info("Prime cache loaded from {} up to {}.", tableResource, generator.sievedUpTo());
+                return generator;
+            }
+            LOG.info("Prime table {} stops at {}, below the sieve size {}; sieving instead.", tableResource,
+                    generator.sievedUpTo(), sieveSize);
+        }
+        return OptimisedReadTimePrimeGenerator.builder()
+                .sieveSize(sieveSize)
+                .initialisation(initialisation, watermarkTimeoutMillis)
+                .build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.gds.service.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual thread request execution, enabled with <code>prime.virtual-threads=true</code> when the service runs on
+ * servlets. Tomcat hands each request to a new virtual thread in place of its bounded worker pool, and streamed
+ * responses are written on virtual threads too, so a range stream blocked on a slow socket holds no platform
+ * thread while cheap lookups carry on around it.
+ * <p/>
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "prime.virtual-threads", havingValue = "true")
+public class VirtualThreadConfiguration implements WebMvcConfigurer, DisposableBean {
+
+    private final ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadConnector() {
+        return factory -> factory.addProtocolHandlerCustomizers(handler -> handler.setExecutor(virtualThreads));
+    }
+
+    @Override
+    public void configureAsyncSupport(final AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreads));
+    }
+
+    @Override
+    public void destroy() {
+        virtualThreads.close();
+    }
+}
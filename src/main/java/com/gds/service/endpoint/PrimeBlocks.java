@@ -0,0 +1,210 @@
+package com.gds.service.endpoint;
+
+import com.gds.service.prime.OptimisedReadTimePrimeGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
+
+/**
+ * Pre-encoded blocks of the prime cache. Block k holds the primes at cache indices [k * 2^14, (k + 1) * 2^14),
+ * encoded in each format as the continuation of a response already past the prime before it: JSON numbers each
+ * led by a comma, bare int32 values, or varint gaps from the preceding prime. Each is encoded once, the first time
+ * a response needs it, as the cache never changes below its watermark: into a direct buffer for the reactive
+ * endpoint, whose transport writes one to the socket without copying, or onto the heap for the servlet endpoint,
+ * whose output stream is written straight from the buffer's array. Only blocks below the sieve size the generator
+ * was built with are kept, bounding the cache at the size of the initial cache in any one format; blocks the
+ * cache has since grown to cover are encoded for each response that needs them.
+ * <p/>
+ * A response spanning whole blocks is then a head, encoded for the request from its first prime up to the next
+ * block boundary, the cached blocks in between, handed out as views without copying, and a tail, encoded for the
+ * request from the last boundary to its last prime. Below the initial sieve size, formatting per request is
+ * bounded by two blocks however large the range. A response starting on a boundary opens with its first prime
+ * alone, followed by the rest of that block; block 0, encoded following nothing, opens a response by itself.
+ * <p/>
+ */
+final class PrimeBlocks {
+
+    static final int BLOCK_PRIMES = 1 << 14;
+    private final OptimisedReadTimePrimeGenerator primeGenerator;
+    private final boolean direct;
+    private final Map<PrimeFormat, ConcurrentMap<Integer, ByteBuffer>> blocks = new EnumMap<>(PrimeFormat.class);
+
+    PrimeBlocks(final OptimisedReadTimePrimeGenerator primeGenerator, final boolean direct) {
+        this.primeGenerator = primeGenerator;
+        this.direct = direct;
+        for (final PrimeFormat format : PrimeFormat.values())
+            blocks.put(format, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * The response for the primes in [start, end] as a sequence of buffers, or null when the range reaches beyond
+     * the watermark or spans no whole block, and is better encoded directly. Each iteration encodes the head and
+     * tail afresh, so the response can be sent more than once.
+     */
+    Iterable<ByteBuffer> response(final PrimeFormat format, final int start, final int end) {
+
+        if (start < 2 || start > end || end >= primeGenerator.sievedUpTo())
+            return null;
+        final int firstIndex = (int) primeGenerator.countPrimesUpTo(start - 1);
+        final int endIndex = (int) primeGenerator.countPrimesUpTo(end);
+        final int firstBlock = (firstIndex + BLOCK_PRIMES - 1) / BLOCK_PRIMES;
+        final int endBlock = endIndex / BLOCK_PRIMES;
+        if (firstBlock >= endBlock)
+            return null;
+        return () -> new Response(format, firstIndex, firstBlock, endBlock, endIndex);
+    }
+
+    /**
+     * Writes the buffers of a response to the stream, straight from the array of those on the heap and through a
+     * transfer buffer for any others.
+     */
+    static void writeTo(final Iterator<ByteBuffer> response, final OutputStream out) throws IOException {
+
+        byte[] transfer = null;
+        while (response.hasNext()) {
+            final ByteBuffer buffer = response.next();
+            if (buffer.hasArray()) {
+                out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                continue;
+            }
+            if (transfer == null)
+                transfer = new byte[PrimeWriter.BUFFER_SIZE];
+            while (buffer.hasRemaining()) {
+                final int length = Math.min(transfer.length, buffer.remaining());
+                buffer.get(transfer, 0, length);
+                out.write(transfer, 0, length);
+            }
+        }
+    }
+
+    int cachedBlockCount(final PrimeFormat format) {
+        return blocks.get(format).size();
+    }
+
+    /**
+     * A view of the cached block, or the block encoded afresh onto the heap if it reaches beyond the initial sieve
+     * size. Direct blocks are handed out read only; heap blocks are not, since a read only view hides its array,
+     * but nothing writes to them.
+     */
+    private ByteBuffer block(final PrimeFormat format, final int block) {
+        if (prime((block + 1) * BLOCK_PRIMES - 1) >= primeGenerator.sieveSize())
+            return encode(format, block, false);
+        final ByteBuffer cached = blocks.get(format).computeIfAbsent(block, key -> encode(format, key, direct));
+        return direct ? cached.asReadOnlyBuffer() : cached.duplicate();
+    }
+
+    private ByteBuffer encode(final PrimeFormat format, final int block, final boolean direct) {
+
+        final int fromIndex = block * BLOCK_PRIMES;
+        final PrimeWriter writer = format.writer(primes(fromIndex, fromIndex + BLOCK_PRIMES), prime(fromIndex - 1),
+                false);
+        final byte[] part = new byte[PrimeWriter.BUFFER_SIZE];
+        byte[] encoded = new byte[PrimeWriter.BUFFER_SIZE];
+        int size = 0;
+        for (int length = writer.write(part); length > 0; length = writer.write(part)) {
+            if (size + length > encoded.length)
+                encoded = Arrays.copyOf(encoded, 2 * encoded.length);
+            System.arraycopy(part, 0, encoded, size, length);
+            size += length;
+        }
+        if (!direct)
+            return ByteBuffer.wrap(Arrays.copyOf(encoded, size));
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        buffer.put(encoded, 0, size).flip();
+        return buffer;
+    }
+
+    /**
+     * The cached primes at indices [fromIndex, toIndex).
+     */
+    private PrimitiveIterator.OfInt primes(final int fromIndex, final int toIndex) {
+        return fromIndex == toIndex ? IntStream.empty().iterator()
+                : primeGenerator.primeStreamForRange(prime(fromIndex), prime(toIndex - 1)).iterator();
+    }
+
+    /**
+     * The cached prime at the index, counting from 0, or 0 before the first.
+     */
+    private int prime(final int index) {
+        return index < 0 ? 0 : (int) primeGenerator.nthPrime(index + 1L);
+    }
+
+    /**
+     * One response: the head encoded in parts, the cached blocks, then the tail encoded in parts.
+     */
+    private final class Response implements Iterator<ByteBuffer> {
+
+        private final PrimeFormat format;
+        private final int endBlock;
+        private final int endIndex;
+        private PrimeWriter part;
+        private int block;
+        private boolean firstPrimeSent;
+        private boolean tail;
+        private ByteBuffer next;
+
+        private Response(final PrimeFormat format, final int firstIndex, final int firstBlock, final int endBlock,
+                         final int endIndex) {
+            this.format = format;
+            this.endBlock = endBlock;
+            this.endIndex = endIndex;
+            this.block = firstBlock;
+            if (firstIndex < firstBlock * BLOCK_PRIMES) {
+                this.part = format.writer(primes(firstIndex, firstBlock * BLOCK_PRIMES), 0, false);
+            } else if (firstBlock > 0) {
+                this.part = format.writer(primes(firstIndex, firstIndex + 1), 0, false);
+                this.firstPrimeSent = true;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            while (next == null) {
+                if (part != null) {
+                    final byte[] encoded = new byte[PrimeWriter.BUFFER_SIZE];
+                    final int length = part.write(encoded);
+                    if (length > 0) {
+                        next = ByteBuffer.wrap(encoded, 0, length);
+                        break;
+                    }
+                    part = null;
+                }
+                if (block < endBlock) {
+                    next = block(format, block++);
+                    if (firstPrimeSent) {
+                        next.position(next.position() + format.firstPrimeLength(next));
+                        firstPrimeSent = false;
+                    }
+                } else if (!tail) {
+                    final int tailIndex = endBlock * BLOCK_PRIMES;
+                    part = format.writer(primes(tailIndex, endIndex), prime(tailIndex - 1), true);
+                    tail = true;
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public ByteBuffer next() {
+
+            if (!hasNext())
+                throw new NoSuchElementException();
+            final ByteBuffer buffer = next;
+            next = null;
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.gds.service.endpoint;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Writes primes as the differences between successive primes, the first taken from zero, each an unsigned LEB128
+ * varint: seven bits a byte, least significant first, the top bit set on every byte but the last. Every gap
+ * between primes below 2^31 is under 2^14, and almost all are under 128, so the encoding takes just over one
+ * byte a prime. A part of the sequence continues from the prime before it.
+ * <p/>
+ */
+final class PrimeDeltaVarintWriter extends PrimeWriter {
+
+    private static final int MAX_VARINT_BYTES = 5;
+    private int previous;
+
+    PrimeDeltaVarintWriter(final PrimitiveIterator.OfInt primes, final int previous) {
+        super(primes);
+        this.previous = previous;
+    }
+
+    @Override
+    int write(final byte[] buffer) {
+
+        int position = 0;
+        while (position <= buffer.length - MAX_VARINT_BYTES && primes.hasNext()) {
+            final int prime = primes.nextInt();
+            int delta = prime - previous;
+            previous = prime;
+            while ((delta & ~0x7F) != 0) {
+                buffer[position++] = (byte) (delta | 0x80);
+                delta >>>= 7;
+            }
+            buffer[position++] = (byte) delta;
+        }
+        return position;
+    }
+}
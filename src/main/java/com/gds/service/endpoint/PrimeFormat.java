@@ -0,0 +1,103 @@
+package com.gds.service.endpoint;
+
+import org.springframework.http.MediaType;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+/**
+ * The encodings a prime response can take, chosen from the request's Accept header. JSON is the default, for a
+ * missing header or one that accepts anything; <code>application/octet-stream</code> selects little-endian 32 bit
+ * integers and {@link #DELTA_VARINT_VALUE} varint encoded gaps, about 4 and 1 bytes a prime against the 8 of JSON
+ * text.
+ * <p/>
+ */
+enum PrimeFormat {
+
+    JSON(MediaType.APPLICATION_JSON) {
+        @Override
+        PrimeWriter writer(final PrimitiveIterator.OfInt primes, final int previous, final boolean last) {
+            return new PrimeJsonWriter(primes, previous, last);
+        }
+
+        @Override
+        int firstPrimeLength(final ByteBuffer part) {
+            int position = part.position() + 1;
+            while (position < part.limit() && part.get(position) != ',')
+                position++;
+            return position - part.position();
+        }
+    },
+    INT32(MediaType.APPLICATION_OCTET_STREAM) {
+        @Override
+        PrimeWriter writer(final PrimitiveIterator.OfInt primes, final int previous, final boolean last) {
+            return new PrimeInt32Writer(primes);
+        }
+
+        @Override
+        int firstPrimeLength(final ByteBuffer part) {
+            return Integer.BYTES;
+        }
+    },
+    DELTA_VARINT(MediaType.valueOf(PrimeFormat.DELTA_VARINT_VALUE)) {
+        @Override
+        PrimeWriter writer(final PrimitiveIterator.OfInt primes, final int previous, final boolean last) {
+            return new PrimeDeltaVarintWriter(primes, previous);
+        }
+
+        @Override
+        int firstPrimeLength(final ByteBuffer part) {
+            int position = part.position();
+            while ((part.get(position) & 0x80) != 0)
+                position++;
+            return position + 1 - part.position();
+        }
+    };
+
+    static final String DELTA_VARINT_VALUE = "application/vnd.gds.primes.delta-varint";
+    private final MediaType mediaType;
+
+    PrimeFormat(final MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * A writer for a whole response.
+     */
+    PrimeWriter writer(final PrimitiveIterator.OfInt primes) {
+        return writer(primes, 0, true);
+    }
+
+    /**
+     * A writer for a part of a response, the primes following <code>previous</code>, or starting the response when
+     * that is 0, and ending it when <code>last</code> is set.
+     */
+    abstract PrimeWriter writer(PrimitiveIterator.OfInt primes, int previous, boolean last);
+
+    /**
+     * The number of bytes taken by the first prime of a part that follows another prime, with its separator.
+     */
+    abstract int firstPrimeLength(ByteBuffer part);
+
+    /**
+     * The format best matching the Accept header, taking the accepted types in order of specificity and quality,
+     * and JSON when the header is missing or matches none.
+     */
+    static PrimeFormat negotiate(final String accept) {
+
+        if (accept == null)
+            return JSON;
+        final List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (final MediaType mediaType : accepted)
+            for (final PrimeFormat format : values())
+                if (mediaType.includes(format.mediaType))
+                    return format;
+        return JSON;
+    }
+}
@@ -0,0 +1,29 @@
+package com.gds.service.endpoint;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Writes primes as a bare array of little-endian 32 bit integers, four bytes each.
+ * <p/>
+ */
+final class PrimeInt32Writer extends PrimeWriter {
+
+    PrimeInt32Writer(final PrimitiveIterator.OfInt primes) {
+        super(primes);
+    }
+
+    @Override
+    int write(final byte[] buffer) {
+
+        int position = 0;
+        while (position <= buffer.length - Integer.BYTES && primes.hasNext()) {
+            final int prime = primes.nextInt();
+            buffer[position] = (byte) prime;
+            buffer[position + 1] = (byte) (prime >>> 8);
+            buffer[position + 2] = (byte) (prime >>> 16);
+            buffer[position + 3] = (byte) (prime >>> 24);
+            position += Integer.BYTES;
+        }
+        return position;
+    }
+}
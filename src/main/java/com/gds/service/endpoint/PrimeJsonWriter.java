@@ -0,0 +1,69 @@
+package com.gds.service.endpoint;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Writes primes as a JSON array of numbers, formatting the digits of each straight into the buffer. A part of an
+ * array, following a prime already written, leaves out the opening bracket and starts with a comma, and only the
+ * last part closes the array.
+ * <p/>
+ */
+final class PrimeJsonWriter extends PrimeWriter {
+
+    private static final int MAX_ELEMENT_BYTES = 12;
+    private final boolean last;
+    private boolean opened;
+    private boolean separated;
+    private boolean finished;
+
+    PrimeJsonWriter(final PrimitiveIterator.OfInt primes, final int previous, final boolean last) {
+        super(primes);
+        this.last = last;
+        this.opened = previous != 0;
+        this.separated = previous != 0;
+    }
+
+    @Override
+    int write(final byte[] buffer) {
+
+        if (finished)
+            return 0;
+        int position = 0;
+        if (!opened) {
+            buffer[position++] = '[';
+            opened = true;
+        }
+        while (position <= buffer.length - MAX_ELEMENT_BYTES && primes.hasNext()) {
+            if (separated)
+                buffer[position++] = ',';
+            separated = true;
+            position = writeDigits(primes.nextInt(), buffer, position);
+        }
+        if (!primes.hasNext()) {
+            if (last)
+                buffer[position++] = ']';
+            finished = true;
+        }
+        return position;
+    }
+
+    /**
+     * Writes the decimal digits of a non-negative value at the position, returning the position after them.
+     */
+    private static int writeDigits(final int value, final byte[] buffer, final int position) {
+
+        int end = position;
+        for (int remaining = value; ; remaining /= 10) {
+            end++;
+            if (remaining < 10)
+                break;
+        }
+        int digit = end;
+        int remaining = value;
+        do {
+            buffer[--digit] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        return end;
+    }
+}
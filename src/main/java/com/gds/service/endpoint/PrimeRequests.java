@@ -0,0 +1,53 @@
+package com.gds.service.endpoint;
+
+import com.gds.service.prime.OptimisedReadTimePrimeGenerator;
+
+import java.util.stream.IntStream;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * The request parameters shared by the servlet and reactive endpoints: either <code>max</code>, for the primes up
+ * to it, or <code>from</code> and <code>to</code>, for those in the range.
+ * <p/>
+ */
+final class PrimeRequests {
+
+    private PrimeRequests() {
+    }
+
+    /**
+     * The requested range as its start and end, both inclusive, checked against the generator so that an invalid
+     * request fails before any response is built for it.
+     */
+    static int[] range(final OptimisedReadTimePrimeGenerator primeGenerator, final Integer max, final Integer from,
+                       final Integer to) {
+
+        final int[] range;
+        if (max != null) {
+            isTrue(from == null && to == null, "Request either max or a from and to range, not both.");
+            isTrue(max >= 2, "Primes can only be harvested for values greater than 2.");
+            range = new int[]{2, max};
+        } else {
+            isTrue(from != null && to != null, "Request either max or a from and to range.");
+            range = new int[]{from, to};
+        }
+        primeGenerator.checkRange(range[0], range[1]);
+        return range;
+    }
+
+    /**
+     * The primes in the range.
+     */
+    static IntStream primes(final OptimisedReadTimePrimeGenerator primeGenerator, final int[] range) {
+        return primeGenerator.primeStreamForRange(range[0], range[1]);
+    }
+
+    /**
+     * Whether answering for the range may block, waiting for the cache to be built or growing it, because it
+     * reaches beyond the watermark.
+     */
+    static boolean mayBlock(final OptimisedReadTimePrimeGenerator primeGenerator, final int[] range) {
+        return range[1] >= primeGenerator.sievedUpTo();
+    }
+}
@@ -1,8 +1,74 @@
 package com.gds.service.endpoint;
 
+import com.gds.service.prime.OptimisedReadTimePrimeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+
 /**
  * @author Matt Vickery (matt.d.vickery@greendotsoftware.co.uk)
  * @since 13/10/2017
+ * <p/>
+ * HTTP surface of the prime service. <code>GET /primes?max=N</code> returns the primes up to N and
+ * <code>GET /primes?from=A&amp;to=B</code> those in [A, B], both as a JSON array of numbers or, as the Accept header
+ * asks, in one of the binary {@link PrimeFormat}s. The response is written incrementally, straight from the
+ * generator's int cache, and sent chunked as it is written, so no list of boxed values is built for a response
+ * however many primes it holds. A range spanning whole {@link PrimeBlocks} is mostly copied from blocks encoded
+ * once, by the first request to need them, rather than formatted again.
+ * <p/>
+ * Invalid requests, such as a range reaching beyond the sieve size, are answered with 400 and the reason; any
+ * other failure is a fault of the service and left to the default handling, as 500.
+ * <p/>
+ * Registered when the service runs on servlets, the default; {@link ReactivePrimeServiceEndpoint} serves the same
+ * requests when it runs reactively.
+ * <p/>
  */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class PrimeServiceRestEndpoint {
-}
\ No newline at end of file
+
+    private final OptimisedReadTimePrimeGenerator primeGenerator;
+    private final PrimeBlocks primeBlocks;
+
+    public PrimeServiceRestEndpoint(final OptimisedReadTimePrimeGenerator primeGenerator) {
+        this.primeGenerator = primeGenerator;
+        this.primeBlocks = new PrimeBlocks(primeGenerator, false);
+    }
+
+    @GetMapping(value = "/primes", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE, PrimeFormat.DELTA_VARINT_VALUE})
+    public ResponseEntity<StreamingResponseBody> primes(
+            @RequestParam(value = "max", required = false) final Integer max,
+            @RequestParam(value = "from", required = false) final Integer from,
+            @RequestParam(value = "to", required = false) final Integer to,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) final String accept) {
+
+        final int[] range = PrimeRequests.range(primeGenerator, max, from, to);
+        final PrimeFormat format = PrimeFormat.negotiate(accept);
+        final Iterable<ByteBuffer> blocks = primeBlocks.response(format, range[0], range[1]);
+        final StreamingResponseBody body;
+        if (blocks != null) {
+            body = out -> PrimeBlocks.writeTo(blocks.iterator(), out);
+        } else {
+            final IntStream primes = PrimeRequests.primes(primeGenerator, range);
+            body = out -> format.writer(primes.iterator()).writeTo(out);
+        }
+        return ResponseEntity.ok().contentType(format.mediaType()).body(body);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> invalidRequest(final IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+    }
+}
@@ -0,0 +1,37 @@
+package com.gds.service.endpoint;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.PrimitiveIterator;
+
+/**
+ * Encodes primes into byte buffers a part of the response at a time, either filling a buffer on request or handing
+ * a reusable one to an output stream each time it fills. Encodings write straight from the iterator into the
+ * buffer, so nothing is allocated per prime, however long the response.
+ * <p/>
+ * A writer may encode just a part of a response, the primes following <code>previous</code>, or following nothing
+ * when that is 0, so that the parts of a response can be encoded separately and sent one after another.
+ * <p/>
+ */
+abstract class PrimeWriter {
+
+    static final int BUFFER_SIZE = 8192;
+    final PrimitiveIterator.OfInt primes;
+
+    PrimeWriter(final PrimitiveIterator.OfInt primes) {
+        this.primes = primes;
+    }
+
+    /**
+     * Writes the next part of the encoding from the start of the buffer, which must hold at least 16 bytes.
+     *
+     * @return the number of bytes written, 0 once everything has been written
+     */
+    abstract int write(byte[] buffer);
+
+    void writeTo(final OutputStream out) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        for (int length = write(buffer); length > 0; length = write(buffer))
+            out.write(buffer, 0, length);
+    }
+}
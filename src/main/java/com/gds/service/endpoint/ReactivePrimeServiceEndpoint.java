@@ -0,0 +1,87 @@
+package com.gds.service.endpoint;
+
+import com.gds.service.prime.OptimisedReadTimePrimeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+
+/**
+ * WebFlux counterpart of {@link PrimeServiceRestEndpoint}, registered instead of it when the service runs
+ * reactively (<code>spring.main.web-application-type=reactive</code>). The same requests return the same JSON
+ * array or binary {@link PrimeFormat}, as a Flux of buffers each holding the next batch of primes from the
+ * generator's range iterator.
+ * <p/>
+ * A batch is only formatted when the connection asks for one, so a slow client holds back the stream rather than
+ * having the response buffered in heap, and a long stream keeps no thread to itself between batches. Ranges the
+ * cache already covers are formatted on the event loop; one that reaches beyond the watermark, which may wait for
+ * the sieve or grow it, is started on the bounded elastic scheduler instead. A range spanning whole
+ * {@link PrimeBlocks} is streamed mostly as the pre-encoded blocks themselves, wrapped rather than copied, straight
+ * to the socket.
+ * <p/>
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePrimeServiceEndpoint {
+
+    private final OptimisedReadTimePrimeGenerator primeGenerator;
+    private final PrimeBlocks primeBlocks;
+
+    public ReactivePrimeServiceEndpoint(final OptimisedReadTimePrimeGenerator primeGenerator) {
+        this.primeGenerator = primeGenerator;
+        this.primeBlocks = new PrimeBlocks(primeGenerator, true);
+    }
+
+    @GetMapping(value = "/primes", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE, PrimeFormat.DELTA_VARINT_VALUE})
+    public ResponseEntity<Flux<DataBuffer>> primes(
+            @RequestParam(value = "max", required = false) final Integer max,
+            @RequestParam(value = "from", required = false) final Integer from,
+            @RequestParam(value = "to", required = false) final Integer to,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) final String accept,
+            final ServerHttpResponse response) {
+
+        final int[] range = PrimeRequests.range(primeGenerator, max, from, to);
+        final PrimeFormat format = PrimeFormat.negotiate(accept);
+        final DataBufferFactory bufferFactory = response.bufferFactory();
+        final Iterable<ByteBuffer> blocks = primeBlocks.response(format, range[0], range[1]);
+        if (blocks != null)
+            return ResponseEntity.ok()
+                    .contentType(format.mediaType())
+                    .body(Flux.fromIterable(blocks).map(bufferFactory::wrap));
+
+        final Flux<DataBuffer> batches = Flux.generate(
+                () -> format.writer(PrimeRequests.primes(primeGenerator, range).iterator()),
+                (writer, sink) -> {
+                    final byte[] batch = new byte[PrimeWriter.BUFFER_SIZE];
+                    final int length = writer.write(batch);
+                    if (length == 0)
+                        sink.complete();
+                    else
+                        sink.next(bufferFactory.wrap(batch).writePosition(length));
+                    return writer;
+                });
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .body(PrimeRequests.mayBlock(primeGenerator, range) ? batches.subscribeOn(Schedulers.boundedElastic())
+                        : batches);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> invalidRequest(final IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+    }
+}
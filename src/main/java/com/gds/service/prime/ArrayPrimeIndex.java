@@ -0,0 +1,62 @@
+package com.gds.service.prime;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+
+/**
+ * {@link PrimeIndex} over an ascending primitive int array of primes, ranked by binary search.
+ * <p/>
+ */
+public class ArrayPrimeIndex implements PrimeIndex {
+
+    private final int[] primes;
+
+    public ArrayPrimeIndex(final int[] primes) {
+        this.primes = primes;
+    }
+
+    @Override
+    public int size() {
+        return primes.length;
+    }
+
+    @Override
+    public int primeAt(final int index) {
+        return primes[index];
+    }
+
+    @Override
+    public int rank(final int value) {
+        final int search = Arrays.binarySearch(primes, value);
+        return search >= 0 ? search + 1 : -search - 1;
+    }
+
+    @Override
+    public int[] toArray(final int fromIndex, final int toIndex) {
+        return Arrays.copyOfRange(primes, fromIndex, toIndex);
+    }
+
+    @Override
+    public IntStream stream(final int fromIndex, final int toIndex) {
+        return Arrays.stream(primes, fromIndex, toIndex);
+    }
+
+    @Override
+    public Spliterator.OfInt spliterator(final int fromIndex, final int toIndex) {
+        return Spliterators.spliterator(primes, fromIndex, toIndex, Spliterator.ORDERED | Spliterator.DISTINCT
+                | Spliterator.SORTED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    @Override
+    public List<Integer> asList(final int fromIndex, final int toIndex) {
+        return new IntArrayListAdapter(primes, fromIndex, toIndex);
+    }
+
+    @Override
+    public long footprintBytes() {
+        return 16L + 4L * primes.length;
+    }
+}
@@ -0,0 +1,121 @@
+package com.gds.service.prime;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static org.springframework.util.Assert.state;
+
+/**
+ * Ascending table of every prime below a coverage bound, used to seed sieves over windows of long values. The
+ * primes are held as unsigned ints, which is enough to reach the square root of Long.MAX_VALUE, and so to sieve
+ * any window of positive longs.
+ * <p/>
+ * A table is extended by sieving the next band of values with itself, each pass at most squaring the coverage.
+ * Alternatively it can be streamed to a larger coverage, in which case only its own primes are held and those
+ * beyond are sieved from them a segment at a time, each time the table is iterated.
+ * <p/>
+ */
+public class BasePrimeTable {
+
+    public static final long MAX_COVERAGE = 3_037_000_500L;
+    private final int[] primes;
+    private final int size;
+    private final long storedCoverage;
+    private final long coverage;
+
+    public BasePrimeTable(final int[] primes, final int size, final long coverage) {
+        this(primes, size, coverage, coverage);
+    }
+
+    private BasePrimeTable(final int[] primes, final int size, final long storedCoverage, final long coverage) {
+        state(coverage <= MAX_COVERAGE, "Base primes are limited to the square root of Long.MAX_VALUE.");
+        this.primes = primes;
+        this.size = size;
+        this.storedCoverage = storedCoverage;
+        this.coverage = coverage;
+    }
+
+    /**
+     * Every prime below this bound is in the table.
+     */
+    public long coverage() {
+        return coverage;
+    }
+
+    /**
+     * The primes of the table in ascending order. The stored primes are read directly and any beyond them sieved
+     * as the iterator reaches them, so a caller that stops early sieves no further.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new TableIterator();
+    }
+
+    /**
+     * A table covering the target that holds no more primes than this one. The primes between this table's
+     * coverage and the target are sieved from it, a segment at a time, whenever the table is iterated: however far
+     * the table reaches, the memory held is this table and a segment per iterator, and the price is sieving those
+     * primes again on every pass.
+     */
+    public BasePrimeTable streamTo(final long target) {
+
+        state(target <= MAX_COVERAGE, "Base primes are limited to the square root of Long.MAX_VALUE.");
+        state(coverage == storedCoverage, "A streamed table cannot be streamed further.");
+        state(target <= coverage * coverage, "A table can only be streamed to the square of its coverage.");
+        return target <= coverage ? this : new BasePrimeTable(primes, size, coverage, target);
+    }
+
+    public BasePrimeTable extendTo(final long target) {
+
+        state(target <= MAX_COVERAGE, "Base primes are limited to the square root of Long.MAX_VALUE.");
+        state(coverage == storedCoverage, "A streamed table cannot be extended.");
+        BasePrimeTable table = this;
+        while (table.coverage < target) {
+            final long next = Math.min(target, Math.max(table.coverage, 2) * Math.max(table.coverage, 2));
+            table = table.extendOnce(next);
+        }
+        return table;
+    }
+
+    private BasePrimeTable extendOnce(final long next) {
+
+        final int estimate = (int) Math.min(Integer.MAX_VALUE - 8,
+                size + 1.1 * (LogarithmicIntegral.li(next) - LogarithmicIntegral.li(Math.max(coverage, 2))) + 64);
+        final int[][] extended = {Arrays.copyOf(primes, Math.max(estimate, size))};
+        final int[] extendedSize = {size};
+        new WindowSieve(this).forEachPrime(coverage, next - 1, prime -> {
+            if (extendedSize[0] == extended[0].length)
+                extended[0] = Arrays.copyOf(extended[0], extendedSize[0] + (extendedSize[0] >>> 1) + 1);
+            extended[0][extendedSize[0]++] = (int) prime;
+            return true;
+        });
+        return new BasePrimeTable(extended[0], extendedSize[0], next);
+    }
+
+    private final class TableIterator implements PrimitiveIterator.OfLong {
+
+        private int index;
+        private PrimitiveIterator.OfLong streamed;
+
+        @Override
+        public boolean hasNext() {
+
+            if (index < size)
+                return true;
+            if (storedCoverage == coverage)
+                return false;
+            if (streamed == null)
+                streamed = new WindowSieve(new BasePrimeTable(primes, size, storedCoverage))
+                        .iterator(storedCoverage, coverage - 1);
+            return streamed.hasNext();
+        }
+
+        @Override
+        public long nextLong() {
+
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return index < size ? primes[index++] & 0xFFFFFFFFL : streamed.nextLong();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.gds.service.prime;
+
+/**
+ * Selects how {@link OptimisedReadTimePrimeGenerator} holds its prime cache.
+ * <p/>
+ */
+public enum CacheBacking {
+
+    /**
+     * Every prime held in a primitive int array, ranges located by binary search.
+     */
+    ARRAY,
+
+    /**
+     * No separate list of primes; a rank/select index over the odd-only sieve bitmap answers counts and range
+     * boundaries in constant time and materialises values only when they are harvested.
+     */
+    RANK_SELECT
+}
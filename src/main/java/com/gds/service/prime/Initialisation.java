@@ -0,0 +1,20 @@
+package com.gds.service.prime;
+
+/**
+ * Selects when {@link OptimisedReadTimePrimeGenerator} builds its prime cache.
+ * <p/>
+ */
+public enum Initialisation {
+
+    /**
+     * The whole cache is built by the constructor.
+     */
+    EAGER,
+
+    /**
+     * The constructor returns at once and the cache is built on a background thread, in stages of increasing
+     * size, each published as it completes. Values below the published watermark are answered from the cache;
+     * above it, queries wait for the watermark up to a timeout and then sieve on demand.
+     */
+    ASYNC
+}
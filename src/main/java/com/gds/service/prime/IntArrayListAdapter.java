@@ -0,0 +1,53 @@
+package com.gds.service.prime;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+import static org.springframework.util.Assert.state;
+
+/**
+ * Read only {@link java.util.List} view over a range of a primitive int array, retained so that callers of the
+ * original <code>List&lt;Integer&gt;</code> API keep working. Values are boxed one at a time as they are read; the
+ * view itself copies nothing.
+ * <p/>
+ */
+final class IntArrayListAdapter extends AbstractList<Integer> implements RandomAccess {
+
+    private final int[] values;
+    private final int fromIndex;
+    private final int toIndex;
+
+    IntArrayListAdapter(final int[] values, final int fromIndex, final int toIndex) {
+        state(0 <= fromIndex && fromIndex <= toIndex && toIndex <= values.length, "Invalid array range.");
+        this.values = values;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+    }
+
+    @Override
+    public Integer get(final int index) {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        return values[fromIndex + index];
+    }
+
+    @Override
+    public int size() {
+        return toIndex - fromIndex;
+    }
+
+    @Override
+    public List<Integer> subList(final int subFromIndex, final int subToIndex) {
+        if (subFromIndex < 0 || subFromIndex > subToIndex || subToIndex > size())
+            throw new IndexOutOfBoundsException("fromIndex: " + subFromIndex + ", toIndex: " + subToIndex);
+        return new IntArrayListAdapter(values, fromIndex + subFromIndex, fromIndex + subToIndex);
+    }
+
+    @Override
+    public Spliterator<Integer> spliterator() {
+        return Spliterators.spliterator(values, fromIndex, toIndex, Spliterator.IMMUTABLE | Spliterator.ORDERED);
+    }
+}
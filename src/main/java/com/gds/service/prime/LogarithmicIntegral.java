@@ -0,0 +1,51 @@
+package com.gds.service.prime;
+
+/**
+ * The logarithmic integral li(x), the prime number theorem's estimate of pi(x), and its inverse, which estimates
+ * the n-th prime to within roughly <code>sqrt(x) log(x)</code>.
+ * <p/>
+ */
+final class LogarithmicIntegral {
+
+    private static final double EULER_MASCHERONI = 0.5772156649015329;
+
+    private LogarithmicIntegral() {
+    }
+
+    /**
+     * li(x) by Ramanujan's series, which converges quickly for all x > 1.
+     */
+    static double li(final double x) {
+
+        final double logX = Math.log(x);
+        double term = 2;
+        double inner = 0;
+        double sum = 0;
+        for (int n = 1; n < 1_000; n++) {
+            term *= logX / (2.0 * n);
+            if ((n & 1) == 1)
+                inner += 1.0 / n;
+            final double contribution = ((n & 1) == 1 ? term : -term) * inner;
+            sum += contribution;
+            if (Math.abs(contribution) < 1e-17 * Math.abs(sum))
+                break;
+        }
+        return EULER_MASCHERONI + Math.log(logX) + Math.sqrt(x) * sum;
+    }
+
+    /**
+     * The x for which li(x) = n, found by Newton's method since li'(x) = 1 / log(x).
+     */
+    static double inverseLi(final double n) {
+
+        final double logN = Math.log(n);
+        double x = n * (logN + Math.log(logN));
+        for (int iteration = 0; iteration < 100; iteration++) {
+            final double next = x - (li(x) - n) * Math.log(x);
+            if (Math.abs(next - x) < 1)
+                return next;
+            x = next;
+        }
+        return x;
+    }
+}
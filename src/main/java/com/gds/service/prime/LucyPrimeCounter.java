@@ -0,0 +1,58 @@
+package com.gds.service.prime;
+
+import static org.springframework.util.Assert.state;
+
+/**
+ * Sublinear prime counting in the style of Lucy Hedgehog's algorithm, a dynamic programming form of Legendre's
+ * method. Only the values <code>x / i</code> can ever be needed, of which there are about <code>2 sqrt(x)</code>;
+ * for each of them the count of integers that survive sieving by the primes processed so far is held and refined
+ * one prime at a time, leaving pi(x) once every prime up to <code>sqrt(x)</code> has been applied.
+ * <p/>
+ * Runs in O(x^(3/4)) time and O(sqrt(x)) memory, so pi(10^12) needs two arrays of a million longs and no sieve.
+ * <p/>
+ */
+public class LucyPrimeCounter {
+
+    public static final long MAX_VALUE = 10_000_000_000_000_000L;
+
+    public long countPrimesUpTo(final long value) {
+
+        state(value <= MAX_VALUE, "Prime counting is limited to values up to 10^16.");
+        if (value < 2)
+            return 0;
+
+        final int root = (int) squareRoot(value);
+        final long[] small = new long[root + 1];
+        final long[] large = new long[root + 1];
+        for (int index = 1; index <= root; index++) {
+            small[index] = index - 1;
+            large[index] = value / index - 1;
+        }
+
+        for (int prime = 2; prime <= root; prime++) {
+            if (small[prime] == small[prime - 1])
+                continue;
+            final long smallerPrimes = small[prime - 1];
+            final long square = (long) prime * prime;
+
+            final int largeLimit = (int) Math.min(root, value / square);
+            for (int index = 1; index <= largeLimit; index++) {
+                final long divisor = (long) index * prime;
+                final long survivors = divisor <= root ? large[(int) divisor] : small[(int) (value / divisor)];
+                large[index] -= survivors - smallerPrimes;
+            }
+            for (int index = root; index >= square; index--)
+                small[index] -= small[index / prime] - smallerPrimes;
+        }
+        return large[1];
+    }
+
+    static long squareRoot(final long value) {
+        long root = (long) Math.sqrt((double) value);
+        while (root > 0 && root > value / root)
+            root--;
+        while (root + 1 <= value / (root + 1))
+            root++;
+        return root;
+    }
+}
@@ -0,0 +1,66 @@
+package com.gds.service.prime;
+
+import java.nio.LongBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * Read only odd-only bitmap over a memory mapped snapshot file, laid out as {@link OddPrimeBitmap}: bit i
+ * represents the odd value 2i + 1 and is set when it is prime. The words stay in the page cache, outside the
+ * heap, and are shared with any other process mapping the same file.
+ * <p/>
+ */
+public class MappedPrimeBitmap implements PrimeBitmap {
+
+    private final int limit;
+    private final LongBuffer words;
+
+    public MappedPrimeBitmap(final int limit, final LongBuffer words) {
+        this.limit = limit;
+        this.words = words;
+    }
+
+    @Override
+    public boolean isPrime(final int value) {
+        if (value < 2 || value >= limit)
+            return false;
+        if ((value & 1) == 0)
+            return value == 2;
+        final int bit = value >>> 1;
+        return (words.get(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    @Override
+    public void forEachPrime(final IntConsumer primeConsumer) {
+        if (limit > 2)
+            primeConsumer.accept(2);
+        for (int wordIndex = 0; wordIndex < words.limit(); wordIndex++) {
+            long word = words.get(wordIndex);
+            while (word != 0) {
+                final long bit = ((long) wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                primeConsumer.accept((int) (2 * bit + 1));
+                word &= word - 1;
+            }
+        }
+    }
+
+    @Override
+    public int count() {
+        int count = limit > 2 ? 1 : 0;
+        for (int wordIndex = 0; wordIndex < words.limit(); wordIndex++)
+            count += Long.bitCount(words.get(wordIndex));
+        return count;
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * The size of the mapping, resident off heap once paged in.
+     */
+    @Override
+    public long footprintBytes() {
+        return 8L * words.limit();
+    }
+}
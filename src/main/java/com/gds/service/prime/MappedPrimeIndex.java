@@ -0,0 +1,134 @@
+package com.gds.service.prime;
+
+import java.nio.IntBuffer;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link PrimeIndex} over the ascending primes of a memory mapped snapshot file, ranked by binary search. Reads
+ * go straight to the mapping; only harvested ranges are copied onto the heap.
+ * <p/>
+ */
+public class MappedPrimeIndex implements PrimeIndex {
+
+    private final IntBuffer primes;
+
+    public MappedPrimeIndex(final IntBuffer primes) {
+        this.primes = primes;
+    }
+
+    @Override
+    public int size() {
+        return primes.limit();
+    }
+
+    @Override
+    public int primeAt(final int index) {
+        return primes.get(index);
+    }
+
+    @Override
+    public int rank(final int value) {
+        int low = 0, high = primes.limit();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (primes.get(middle) <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    @Override
+    public int[] toArray(final int fromIndex, final int toIndex) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > size())
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex);
+        final int[] values = new int[toIndex - fromIndex];
+        final IntBuffer range = primes.duplicate();
+        range.position(fromIndex);
+        range.get(values);
+        return values;
+    }
+
+    @Override
+    public IntStream stream(final int fromIndex, final int toIndex) {
+        return StreamSupport.intStream(spliterator(fromIndex, toIndex), false);
+    }
+
+    @Override
+    public Spliterator.OfInt spliterator(final int fromIndex, final int toIndex) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > size())
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex);
+        return new BufferSpliterator(fromIndex, toIndex);
+    }
+
+    @Override
+    public List<Integer> asList(final int fromIndex, final int toIndex) {
+        final int[] values = toArray(fromIndex, toIndex);
+        return new IntArrayListAdapter(values, 0, values.length);
+    }
+
+    /**
+     * The size of the mapping, resident off heap once paged in.
+     */
+    @Override
+    public long footprintBytes() {
+        return 4L * primes.limit();
+    }
+
+    private final class BufferSpliterator implements Spliterator.OfInt {
+
+        private int index;
+        private final int toIndex;
+
+        private BufferSpliterator(final int fromIndex, final int toIndex) {
+            this.index = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            final int middle = (index + toIndex) >>> 1;
+            if (middle <= index)
+                return null;
+            final Spliterator.OfInt prefix = new BufferSpliterator(index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(final IntConsumer action) {
+            if (index >= toIndex)
+                return false;
+            action.accept(primes.get(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final IntConsumer action) {
+            while (index < toIndex)
+                action.accept(primes.get(index++));
+        }
+
+        @Override
+        public long estimateSize() {
+            return toIndex - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL
+                    | Spliterator.IMMUTABLE | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.gds.service.prime;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.springframework.util.Assert.state;
+
+/**
+ * Meissel-Lehmer prime counting for very large values. With <code>y</code> at least the cube root of
+ * <code>x</code> and <code>a = pi(y)</code>,
+ * <pre>
+ *     pi(x) = phi(x, a) + a - 1 - P2(x, a)
+ * </pre>
+ * where <code>phi(x, a)</code> counts the integers up to <code>x</code> with no prime factor among the first
+ * <code>a</code> primes and <code>P2</code> counts those with exactly two prime factors above <code>y</code>. Both
+ * terms only ever need pi(v) for <code>v &lt; x / y</code>, roughly <code>x^(2/3)</code>, which is answered in
+ * constant time by a rank/select index over an odd-only sieve of that range.
+ * <p/>
+ * phi is evaluated by the Legendre recurrence, truncated with a precomputed table for the first six primes, by
+ * <code>phi(v, b) = pi(v) - b + 1</code> once <code>v &lt; p(b+1)^2</code>, and by a cache of phi for small values
+ * against the first hundred primes, where the great majority of the recursion would otherwise end. The independent
+ * top level terms are spread over a fork/join pool. The primes used by phi are taken from the caller's prime table
+ * where it holds enough of them.
+ * <p/>
+ * Time and memory are roughly O(x^(2/3)). The sieve behind the pi table is capped at 2^31, beyond which
+ * <code>y</code> is raised to keep <code>x / y</code> within it; pi(10^14) sieves to just below the cap.
+ * <p/>
+ */
+public class MeisselLehmerPrimeCounter {
+
+    public static final long MAX_VALUE = 10_000_000_000_000_000L;
+    private static final int MAX_PI_LIMIT = Integer.MAX_VALUE - 1;
+    private static final int PHI_CACHE_PRIMES = 100;
+    private static final int PHI_CACHE_LIMIT = 1 << 20;
+    private static final int[] SMALL_PRIMES = {2, 3, 5, 7, 11, 13};
+    private static final int[] SMALL_PRODUCTS = new int[SMALL_PRIMES.length + 1];
+    private static final int[] SMALL_TOTIENTS = new int[SMALL_PRIMES.length + 1];
+    private static final int[][] SMALL_PHI = new int[SMALL_PRIMES.length + 1][];
+
+    static {
+        SMALL_PRODUCTS[0] = SMALL_TOTIENTS[0] = 1;
+        SMALL_PHI[0] = new int[]{0};
+        for (int count = 1; count <= SMALL_PRIMES.length; count++) {
+            final int prime = SMALL_PRIMES[count - 1];
+            SMALL_PRODUCTS[count] = SMALL_PRODUCTS[count - 1] * prime;
+            SMALL_TOTIENTS[count] = SMALL_TOTIENTS[count - 1] * (prime - 1);
+            final int[] table = new int[SMALL_PRODUCTS[count]];
+            for (int value = 1; value < table.length; value++) {
+                boolean coprime = true;
+                for (int index = 0; index < count && coprime; index++)
+                    coprime = value % SMALL_PRIMES[index] != 0;
+                table[value] = table[value - 1] + (coprime ? 1 : 0);
+            }
+            SMALL_PHI[count] = table;
+        }
+    }
+
+    private final PrimeIndex smallPrimeTable;
+    private final int parallelism;
+
+    public MeisselLehmerPrimeCounter(final PrimeIndex smallPrimeTable, final int parallelism) {
+        state(parallelism > 0, "Parallelism must be positive.");
+        this.smallPrimeTable = smallPrimeTable;
+        this.parallelism = parallelism;
+    }
+
+    public long countPrimesUpTo(final long value) {
+
+        state(value <= MAX_VALUE, "Prime counting is limited to values up to 10^16.");
+        if (value < 2)
+            return 0;
+
+        final long root = LucyPrimeCounter.squareRoot(value);
+        final long y = Math.min(root, Math.max(cubeRoot(value), value / MAX_PI_LIMIT + 1));
+        final int piLimit = (int) (value / y + 1);
+
+        final OddPrimeBitmap bitmap = new OddPrimeBitmap(piLimit);
+        new ParallelSegmentedSieve((int) LucyPrimeCounter.squareRoot(piLimit), parallelism).sieve(bitmap);
+        final RankSelectPrimeIndex piTable = new RankSelectPrimeIndex(bitmap);
+
+        final int a = piTable.rank((int) y);
+        final int[] primes = phiPrimes(a + 1, piTable);
+        final Phi phi = new Phi(primes, piTable);
+
+        final long phiValue;
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            phiValue = pool.submit(() -> phi.evaluateParallel(value, a)).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Prime counting was interrupted.", e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Prime counting failed.", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        return phiValue + a - 1 - p2(value, y, root, piTable);
+    }
+
+    /**
+     * P2(x, a): the sum over primes y &lt; p &lt;= sqrt(x) of pi(x / p) - pi(p) + 1.
+     */
+    private long p2(final long value, final long y, final long root, final RankSelectPrimeIndex piTable) {
+        final int fromIndex = piTable.rank((int) y);
+        final int toIndex = piTable.rank((int) root);
+        long sum = 0;
+        for (int index = fromIndex; index < toIndex; index++)
+            sum += piTable.rank((int) (value / piTable.primeAt(index))) - index;
+        return sum;
+    }
+
+    private int[] phiPrimes(final int count, final RankSelectPrimeIndex piTable) {
+        final PrimeIndex source = smallPrimeTable != null && smallPrimeTable.size() >= count ? smallPrimeTable
+                : piTable;
+        return source.toArray(0, Math.min(count, source.size()));
+    }
+
+    static long cubeRoot(final long value) {
+        long root = (long) Math.cbrt((double) value);
+        while (root * root * root > value)
+            root--;
+        while ((root + 1) * (root + 1) * (root + 1) <= value)
+            root++;
+        return root;
+    }
+
+    private static final class Phi {
+
+        private final int[] primes;
+        private final RankSelectPrimeIndex piTable;
+        private final int piLimit;
+        private final int cachedPrimes;
+        private final int cacheLimit;
+        private final long[][] cacheWords;
+        private final int[][] cacheCounts;
+
+        private Phi(final int[] primes, final RankSelectPrimeIndex piTable) {
+            this.primes = primes;
+            this.piTable = piTable;
+            piLimit = piTable.size() == 0 ? 0 : piTable.primeAt(piTable.size() - 1) + 1;
+
+            cachedPrimes = Math.min(PHI_CACHE_PRIMES, primes.length);
+            cacheLimit = Math.min(PHI_CACHE_LIMIT, (piLimit + 63) & ~63);
+            cacheWords = new long[cachedPrimes + 1][];
+            cacheCounts = new int[cachedPrimes + 1][];
+            final long[] survivors = new long[cacheLimit >>> 6];
+            for (int value = 1; value < cacheLimit; value++)
+                if (smallPhi(value, SMALL_PRIMES.length) != smallPhi(value - 1, SMALL_PRIMES.length))
+                    survivors[value >>> 6] |= 1L << value;
+            for (int count = SMALL_PRIMES.length + 1; count <= cachedPrimes; count++) {
+                final int prime = primes[count - 1];
+                for (int multiple = prime; multiple < cacheLimit; multiple += prime)
+                    survivors[multiple >>> 6] &= ~(1L << multiple);
+                cacheWords[count] = survivors.clone();
+                final int[] counts = new int[survivors.length + 1];
+                for (int index = 0; index < survivors.length; index++)
+                    counts[index + 1] = counts[index] + Long.bitCount(survivors[index]);
+                cacheCounts[count] = counts;
+            }
+        }
+
+        long evaluateParallel(final long value, final int count) {
+            if (count <= SMALL_PRIMES.length)
+                return smallPhi(value, count);
+            return smallPhi(value, SMALL_PRIMES.length) - IntStream.rangeClosed(SMALL_PRIMES.length + 1, count)
+                    .parallel()
+                    .mapToLong(index -> evaluate(value / primes[index - 1], index - 1))
+                    .sum();
+        }
+
+        /**
+         * phi(value, count), the number of integers in [1, value] divisible by none of the first count primes.
+         */
+        long evaluate(final long value, final int count) {
+
+            if (count <= SMALL_PRIMES.length)
+                return smallPhi(value, count);
+            if (count <= cachedPrimes && value < cacheLimit - 1)
+                return cachedPhi(value, count);
+            if (value < piLimit && count < primes.length && value < (long) primes[count] * primes[count])
+                return 1 + Math.max(0, pi(value) - count);
+
+            final int recursionLimit = Math.min(count, pi(LucyPrimeCounter.squareRoot(value)));
+            long result = smallPhi(value, SMALL_PRIMES.length)
+                    - (count - Math.max(SMALL_PRIMES.length, recursionLimit));
+            for (int index = SMALL_PRIMES.length + 1; index <= recursionLimit; index++)
+                result -= evaluate(value / primes[index - 1], index - 1);
+            return result;
+        }
+
+        private long cachedPhi(final long value, final int count) {
+            final int bits = (int) value + 1;
+            final int[] counts = cacheCounts[count];
+            final int wordIndex = bits >>> 6;
+            if ((bits & 63) == 0)
+                return counts[wordIndex];
+            return counts[wordIndex] + Long.bitCount(cacheWords[count][wordIndex] & ((1L << bits) - 1));
+        }
+
+        private int pi(final long value) {
+            return piTable.rank((int) value);
+        }
+
+        private static long smallPhi(final long value, final int count) {
+            final int product = SMALL_PRODUCTS[count];
+            return value / product * SMALL_TOTIENTS[count] + SMALL_PHI[count][(int) (value % product)];
+        }
+    }
+}
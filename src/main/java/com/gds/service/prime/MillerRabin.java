@@ -0,0 +1,104 @@
+package com.gds.service.prime;
+
+/**
+ * Deterministic Miller-Rabin primality test for any positive long. The seven bases 2, 325, 9375, 28178, 450775,
+ * 9780504 and 1795265022 are known to admit no strong pseudoprime below 2^64, so the answer is exact.
+ * <p/>
+ * Modular arithmetic is done in Montgomery form with R = 2^64: a product reduces with two high word
+ * multiplications, each a single intrinsic, and a subtraction instead of a division, and nothing is allocated.
+ * Small factors are removed by trial division first, which settles most composites before any exponentiation.
+ * <p/>
+ */
+final class MillerRabin {
+
+    private static final long[] BASES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+    private static final int[] TRIAL_PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47};
+    private static final long TRIAL_LIMIT = 53 * 53;
+
+    private MillerRabin() {
+    }
+
+    static boolean isPrime(final long value) {
+
+        if (value < 2)
+            return false;
+        for (final int prime : TRIAL_PRIMES)
+            if (value % prime == 0)
+                return value == prime;
+        if (value < TRIAL_LIMIT)
+            return true;
+
+        final long inverse = inverse(value);
+        final long one = (Long.remainderUnsigned(-1L, value) + 1) % value;
+        final long rSquared = rSquared(one, value);
+        final long minusOne = value - one;
+        final int twos = Long.numberOfTrailingZeros(value - 1);
+        final long odd = (value - 1) >>> twos;
+
+        for (final long base : BASES) {
+            final long reduced = base % value;
+            if (reduced == 0)
+                continue;
+
+            long x = power(multiply(reduced, rSquared, value, inverse), odd, one, value, inverse);
+            if (x == one || x == minusOne)
+                continue;
+
+            boolean witness = true;
+            for (int square = 1; square < twos && witness; square++) {
+                x = multiply(x, x, value, inverse);
+                if (x == one)
+                    return false;
+                witness = x != minusOne;
+            }
+            if (witness)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Montgomery product a * b / 2^64 mod n, for a, b &lt; n &lt; 2^63 and inverse = n^-1 mod 2^64.
+     */
+    private static long multiply(final long a, final long b, final long modulus, final long inverse) {
+        final long high = Math.unsignedMultiplyHigh(a, b);
+        final long reducer = a * b * inverse;
+        final long result = high - Math.unsignedMultiplyHigh(reducer, modulus);
+        return result < 0 ? result + modulus : result;
+    }
+
+    private static long power(final long base, final long exponent, final long one, final long modulus,
+                              final long inverse) {
+        long result = one, square = base;
+        for (long remaining = exponent; remaining != 0; remaining >>>= 1) {
+            if ((remaining & 1) != 0)
+                result = multiply(result, square, modulus, inverse);
+            square = multiply(square, square, modulus, inverse);
+        }
+        return result;
+    }
+
+    /**
+     * n^-1 mod 2^64 for odd n by Newton's iteration, each step doubling the number of correct low bits from the
+     * three that n itself provides.
+     */
+    private static long inverse(final long modulus) {
+        long inverse = modulus;
+        for (int step = 0; step < 5; step++)
+            inverse *= 2 - modulus * inverse;
+        return inverse;
+    }
+
+    /**
+     * 2^128 mod n, from 2^64 mod n by 64 modular doublings.
+     */
+    private static long rSquared(final long one, final long modulus) {
+        long result = one;
+        for (int bit = 0; bit < 64; bit++) {
+            result <<= 1;
+            if (result < 0 || result >= modulus)
+                result -= modulus;
+        }
+        return result;
+    }
+}
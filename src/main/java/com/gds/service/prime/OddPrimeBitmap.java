@@ -0,0 +1,111 @@
+package com.gds.service.prime;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import static org.springframework.util.Assert.state;
+
+/**
+ * Bit packed sieve storage holding only the odd integers below a limit, bit <code>i</code> representing the value
+ * <code>2i + 1</code>. A set bit marks a prime, so a new bitmap starts with every odd candidate set and the sieve
+ * clears the composites. The only even prime, 2, is answered without storage.
+ * <p/>
+ * Sixteen times denser than one boolean per integer: 2^24 integers are held in 1 MB rather than 16 MB.
+ * <p/>
+ */
+public class OddPrimeBitmap implements PrimeBitmap {
+
+    private final int limit;
+    private final long bitCount;
+    private final long[] words;
+
+    public OddPrimeBitmap(final int limit) {
+        this.limit = Math.max(limit, 0);
+        bitCount = this.limit / 2;
+        words = new long[(int) ((bitCount + 63) >>> 6)];
+        Arrays.fill(words, -1L);
+        if (bitCount % 64 != 0)
+            words[words.length - 1] = -1L >>> (64 - bitCount % 64);
+        if (bitCount > 0)
+            words[0] &= ~1L;
+    }
+
+    /**
+     * A bitmap for the larger limit holding the prefix's sieved bits, the bits beyond the prefix still all set and
+     * awaiting sieving.
+     */
+    OddPrimeBitmap(final OddPrimeBitmap prefix, final int limit) {
+        this(limit);
+        state(limit >= prefix.limit, "A bitmap can only be extended to a larger limit.");
+        System.arraycopy(prefix.words, 0, words, 0, prefix.words.length);
+        if (prefix.bitCount % 64 != 0)
+            words[prefix.words.length - 1] |= -1L << prefix.bitCount;
+        if (bitCount % 64 != 0)
+            words[words.length - 1] &= -1L >>> (64 - bitCount % 64);
+    }
+
+    /**
+     * A bitmap with exactly the given primes, all below the limit, marked prime.
+     */
+    OddPrimeBitmap(final int limit, final int[] primes) {
+        this(limit);
+        Arrays.fill(words, 0L);
+        for (final int prime : primes)
+            if (prime > 2)
+                words[prime >>> 7] |= 1L << (prime >>> 1);
+    }
+
+    @Override
+    public boolean isPrime(final int value) {
+        if (value < 2 || value >= limit)
+            return false;
+        if ((value & 1) == 0)
+            return value == 2;
+        final int bit = value >>> 1;
+        return (words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    @Override
+    public void forEachPrime(final IntConsumer primeConsumer) {
+        if (limit > 2)
+            primeConsumer.accept(2);
+        for (int wordIndex = 0; wordIndex < words.length; wordIndex++) {
+            long word = words[wordIndex];
+            while (word != 0) {
+                final long bit = ((long) wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                primeConsumer.accept((int) (2 * bit + 1));
+                word &= word - 1;
+            }
+        }
+    }
+
+    @Override
+    public int count() {
+        int count = limit > 2 ? 1 : 0;
+        for (final long word : words)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return 16L + 8L * words.length;
+    }
+
+    long bitCount() {
+        return bitCount;
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    void clearBit(final long bit) {
+        words[(int) (bit >>> 6)] &= ~(1L << bit);
+    }
+}
@@ -4,16 +4,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.StopWatch;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 import static java.math.BigDecimal.valueOf;
-import static org.springframework.util.Assert.state;
+import static org.springframework.util.Assert.isTrue;
 
 /**
  * @author Matt Vickery (matt.d.vickery@greendotsoftware.co.uk)
@@ -22,30 +30,114 @@ import static org.springframework.util.Assert.state;
  * Build a prime generator that enables a caller to request a set of prime numbers, either up to a maximum value
  * or between a user supplied range
  * <p/>
- * Maintains two potentially large collections during construction so memory size is a trade off against
- * fast access. At the end of construction, the initial array used for building the cache is discarded so half
- * the space overhead is on-going.
+ * Maintains two potentially large collections so memory size is a trade off against fast access. The sieve is
+ * held as an odd-only bitmap, one bit per odd integer, which answers primality lookups and is retained alongside
+ * the cache of prime values used for range harvesting. By default the cache is a primitive int array, so range
+ * queries read it without boxing; the <code>List&lt;Integer&gt;</code> harvesting methods are views over it
+ * retained for compatibility. Alternatively the cache can be backed by a rank/select index over the bitmap, which
+ * holds no separate list of values at all.
+ * <p/>
+ * The cache can also be built asynchronously, in which case the generator is returned after sieving a small
+ * first stage and a background thread publishes ever larger snapshots, up to the sieve size. The limit of the
+ * latest snapshot is the watermark: values below it are answered from the cache, values above it are waited for
+ * up to a configured timeout and then sieved on demand, as values beyond the sieve size always are.
+ * <p/>
+ * Given a growth policy, the cache is extended rather than rejecting queries beyond the sieve size: only the new
+ * segments are sieved, their primes appended to a copy of the cache, and the result published as a new snapshot,
+ * so readers of the previous snapshot carry on unblocked while it is built.
+ * <p/>
+ * A built cache can be written to a snapshot file and a later generator constructed from that file, which maps it
+ * read only rather than sieving again; see {@link SieveSnapshotFile} for the format. Equally, the build embeds a
+ * precomputed table of primes in the jar, from which a generator starts without sieving at all; see
+ * {@link PrimeTableResource}.
  * <p/>
  */
 public class OptimisedReadTimePrimeGenerator {
 
     private static final Logger LOG = LoggerFactory.getLogger(OptimisedReadTimePrimeGenerator.class);
+    private static final long MEISSEL_LEHMER_THRESHOLD = 10_000_000_000L;
+    private static final int PARALLEL_BATCH_THRESHOLD = 4_096;
+    private static final int FIRST_STAGE_SIZE = 1 << 20;
+    private static final int STAGE_GROWTH = 4;
+    private static final long MAX_RETAINED_BASE_COVERAGE = 1L << 24;
     private final int sieveSize;
-    private final int maxFactorSize;
-    private final StopWatch stopWatch = new StopWatch();
-    private boolean[] primes;
-    private final List<Integer> primeValueCache = new ArrayList<>();
-    private boolean initialised = false;
+    private final SieveEngine engine;
+    private final int parallelism;
+    private final CacheBacking backing;
+    private final long watermarkTimeoutMillis;
+    private final SieveGrowth growth;
+    private final int maxSieveSize;
+    private final LucyPrimeCounter primeCounter = new LucyPrimeCounter();
+    private final Object watermarkMonitor = new Object();
+    private final Object growthMonitor = new Object();
+    private volatile SieveSnapshot snapshot;
+    private volatile boolean initialised = false;
     private DecimalFormat formatter = new DecimalFormat("###,###,###");
+    private volatile ForkJoinPool queryPool;
+    private volatile BasePrimeTable basePrimeTable;
 
     public OptimisedReadTimePrimeGenerator() {
         this((int) Math.round(Math.pow(2, 24)));
     }
 
     public OptimisedReadTimePrimeGenerator(final int sieveSize) {
-        this.sieveSize = sieveSize;
-        maxFactorSize = (int) Math.round(Math.sqrt(sieveSize));
-        init();
+        this(builder().sieveSize(sieveSize), null);
+    }
+
+    /**
+     * A generator over a snapshot file written by {@link #writeSnapshot(Path)}, mapped read only so that startup
+     * costs a page-in rather than a sieve, and instances on one host share the page cache.
+     *
+     * @throws IOException if the file cannot be read, or is not a valid snapshot of a supported version
+     */
+    public OptimisedReadTimePrimeGenerator(final Path snapshotFile) throws IOException {
+        this(SieveSnapshotFile.map(snapshotFile));
+    }
+
+    /**
+     * A generator over a prime table resource on the classpath, such as {@link PrimeTableResource#DEFAULT_RESOURCE}
+     * as generated by the build, loaded in a single bulk read with no sieving.
+     *
+     * @throws IOException if the resource is missing or is not a valid table of a supported version
+     */
+    public OptimisedReadTimePrimeGenerator(final String tableResource) throws IOException {
+        this(PrimeTableResource.load(tableResource));
+    }
+
+    private OptimisedReadTimePrimeGenerator(final SieveSnapshot loaded) {
+        this(builder().sieveSize(loaded.limit), loaded);
+    }
+
+    private OptimisedReadTimePrimeGenerator(final Builder builder, final SieveSnapshot loaded) {
+        isTrue(builder.parallelism > 0, "Parallelism must be positive.");
+        isTrue(builder.backing != CacheBacking.RANK_SELECT || builder.engine != SieveEngine.WHEEL,
+                "A rank/select cache requires odd-only sieve storage.");
+        isTrue(builder.watermarkTimeoutMillis >= 0, "The watermark timeout must not be negative.");
+        sieveSize = builder.sieveSize;
+        engine = builder.engine;
+        parallelism = builder.parallelism;
+        backing = builder.backing;
+        watermarkTimeoutMillis = builder.watermarkTimeoutMillis;
+        growth = builder.growth;
+        maxSieveSize = Math.max(sieveSize, growth.maxSieveSize());
+        if (loaded != null) {
+            publish(loaded);
+        } else if (builder.initialisation == Initialisation.ASYNC && sieveSize > FIRST_STAGE_SIZE) {
+            publish(init(FIRST_STAGE_SIZE));
+            final Thread initialiser = new Thread(this::buildStages, "prime-sieve-initialiser");
+            initialiser.setDaemon(true);
+            initialiser.start();
+        } else {
+            publish(init(sieveSize));
+        }
+    }
+
+    /**
+     * A builder for a generator configured beyond its sieve size, starting from an eagerly built 2^24 segmented
+     * sieve using every processor, an array cache and no growth.
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     public static void main(final String[] args) {
@@ -58,59 +150,563 @@ public class OptimisedReadTimePrimeGenerator {
     }
 
     public List<Integer> harvestPrimesUpToValue(final int value) {
-        state(value >= 2, "Primes can only be harvested for values greater than 2.");
-        return harvestPrimesForRange(0, value);
+        isTrue(value >= 2, "Primes can only be harvested for values greater than 2.");
+        return harvestPrimesForRange(2, value);
     }
 
     public List<Integer> harvestPrimesForRange(final int start, final int end) {
+        checkRange(start, end);
+        final SieveSnapshot cache = snapshotCovering(end);
+        if (end >= cache.limit) {
+            final int[] primes = primesOnDemand(cache, start, end);
+            return new IntArrayListAdapter(primes, 0, primes.length);
+        }
+        final int[] indices = locateRange(cache, start, end);
+        return cache.index.asList(indices[0], indices[1]);
+    }
 
-        state(start <= end, "");
-        state(start >= 2, "Primes can only be harvested for values greater than 2.");
-        state(end < sieveSize, "");
+    public int[] primesUpToValue(final int value) {
+        isTrue(value >= 2, "Primes can only be harvested for values greater than 2.");
+        return primesForRange(2, value);
+    }
 
-        if (LOG.isDebugEnabled())
-            stopWatch.start();
+    public int[] primesForRange(final int start, final int end) {
+        checkRange(start, end);
+        final SieveSnapshot cache = snapshotCovering(end);
+        if (end >= cache.limit)
+            return primesOnDemand(cache, start, end);
+        final int[] indices = locateRange(cache, start, end);
+        return cache.index.toArray(indices[0], indices[1]);
+    }
+
+    public IntStream primeStreamForRange(final int start, final int end) {
+        checkRange(start, end);
+        final SieveSnapshot cache = snapshotCovering(end);
+        if (end >= cache.limit)
+            return Arrays.stream(primesOnDemand(cache, start, end));
+        final int[] indices = locateRange(cache, start, end);
+        return cache.index.stream(indices[0], indices[1]);
+    }
+
+    /**
+     * Every value below the watermark is answered from the cache. It reaches the sieve size once initialisation
+     * is complete.
+     */
+    public int sievedUpTo() {
+        return snapshot.limit;
+    }
+
+    /**
+     * The sieve size chosen at construction, before any growth.
+     */
+    public int sieveSize() {
+        return sieveSize;
+    }
+
+    /**
+     * Writes the current cache to a snapshot file, replacing any file already there.
+     */
+    public void writeSnapshot(final Path snapshotFile) throws IOException {
+        SieveSnapshotFile.write(snapshot, snapshotFile);
+    }
+
+    public boolean isInitialised() {
+        return initialised;
+    }
+
+    /**
+     * Waits until the watermark passes the value or the timeout expires.
+     *
+     * @return true if the value is now answered from the cache
+     */
+    public boolean awaitWatermark(final long value, final long timeout, final TimeUnit unit)
+            throws InterruptedException {
+
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (watermarkMonitor) {
+            while (snapshot.limit <= value && !initialised) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    break;
+                TimeUnit.NANOSECONDS.timedWait(watermarkMonitor, remaining);
+            }
+        }
+        return value < snapshot.limit;
+    }
+
+    /**
+     * pi(value), the number of primes less than or equal to the value. Answered from the cache index below the sieve
+     * size, otherwise counted with a sublinear algorithm without sieving the whole range: Lucy's O(x^(3/4))
+     * algorithm for moderate values and Meissel-Lehmer, parallel across the configured cores, from 10^10.
+     */
+    public long countPrimesUpTo(final long value) {
+        final SieveSnapshot cache = snapshotCovering(value);
+        if (value < cache.limit)
+            return value < 2 ? 0 : cache.index.rank((int) value);
+        if (value < MEISSEL_LEHMER_THRESHOLD)
+            return primeCounter.countPrimesUpTo(value);
+        return new MeisselLehmerPrimeCounter(cache.index, parallelism).countPrimesUpTo(value);
+    }
+
+    public long countPrimesInRange(final long start, final long end) {
+        isTrue(start <= end, "The start of a range must not be greater than its end.");
+        return countPrimesUpTo(end) - countPrimesUpTo(start - 1);
+    }
+
+    /**
+     * The n-th prime, counting 2 as the first. Constant time within the cache; beyond it the prime is located by
+     * the inverse logarithmic integral, the estimate counted exactly with pi(x) and the short gap between the
+     * estimate and the prime covered by a segmented sieve.
+     */
+    public long nthPrime(final long n) {
+
+        isTrue(n >= 1, "Primes are numbered from 1.");
+        final SieveSnapshot cache = snapshot;
+        if (n <= cache.index.size())
+            return cache.index.primeAt((int) (n - 1));
+
+        final long estimate = Math.max(cache.limit, (long) LogarithmicIntegral.inverseLi(n));
+        final long count = countPrimesUpTo(estimate);
+        return count < n ? primeAbove(estimate, n - count) : primeAtOrBelow(estimate, count - n);
+    }
+
+    /**
+     * Every prime in [start, end], for any end up to Long.MAX_VALUE. The part of the window below the sieve size is
+     * read from the cache and the remainder sieved on demand, a segment at a time, seeded with the base primes up
+     * to sqrt(end); the cost is proportional to the width of the window plus pi(sqrt(end)). A window ending at or
+     * beyond the maximum sieve size reads the cache as it stands, neither growing it nor waiting for the watermark.
+     */
+    public long[] primesForWindow(final long start, final long end) {
+
+        isTrue(start <= end, "The start of a range must not be greater than its end.");
+        return primesForWindow(snapshotCovering(end), start, end);
+    }
+
+    private long[] primesForWindow(final SieveSnapshot cache, final long start, final long end) {
+
+        final LongStream.Builder window = LongStream.builder();
+        if (start < cache.limit && end >= 2) {
+            final int fromIndex = start < 2 ? 0 : cache.index.rank((int) start - 1);
+            final int toIndex = cache.index.rank((int) Math.min(end, cache.limit - 1));
+            cache.index.stream(fromIndex, toIndex).forEach(window::accept);
+        }
+        if (end >= cache.limit)
+            windowSieve(end).forEachPrime(Math.max(start, cache.limit), end, prime -> {
+                window.accept(prime);
+                return true;
+            });
+        return window.build().toArray();
+    }
+
+    /**
+     * The primes in [start, end] as a lazy stream, for any end up to Long.MAX_VALUE. The part of the window below
+     * the sieve size streams from the cache, split by index; the remainder is sieved on demand, split by segment,
+     * so a parallel() pipeline sieves the parts of the window concurrently.
+     */
+    public LongStream primeStreamForWindow(final long start, final long end) {
+
+        isTrue(start <= end, "The start of a range must not be greater than its end.");
+        final SieveSnapshot cache = snapshotCovering(end);
+        LongStream window = LongStream.empty();
+        if (start < cache.limit && end >= 2) {
+            final int fromIndex = start < 2 ? 0 : cache.index.rank((int) start - 1);
+            final int toIndex = cache.index.rank((int) Math.min(end, cache.limit - 1));
+            window = StreamSupport.intStream(cache.index.spliterator(fromIndex, toIndex), false).asLongStream();
+        }
+        if (end >= cache.limit)
+            window = LongStream.concat(window, StreamSupport.longStream(new WindowSpliterator(windowSieve(end),
+                    Math.max(start, cache.limit), end), false));
+        return window;
+    }
+
+    /**
+     * Every prime, in ascending order, as a lazy and unbounded stream: the cache is read first and the stream then
+     * continues through windows sieved on demand, so callers need not know the sieve size.
+     */
+    public LongStream primes() {
+        return primesFrom(2);
+    }
+
+    /**
+     * The primes at or above the value, as a lazy stream, e.g. <code>primesFrom(x).limit(10_000_000)</code> for
+     * the next ten million primes from x.
+     */
+    public LongStream primesFrom(final long value) {
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(primeIterator(value),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL
+                        | Spliterator.IMMUTABLE), false);
+    }
+
+    public PrimeIterator primeIterator(final long value) {
+        final SieveSnapshot cache = snapshot;
+        return new PrimeIterator(cache.index, cache.limit, this::basePrimes, value);
+    }
+
+    /**
+     * Primality of any long. Values below the watermark are read from the bitmap, larger values are decided by a
+     * deterministic Miller-Rabin test, which is cheap enough that it never waits for the watermark.
+     */
+    public boolean isPrime(final long value) {
+        final SieveSnapshot cache = snapshot;
+        if (value < cache.limit)
+            return value >= 2 && cache.bitmap.isPrime((int) value);
+        return MillerRabin.isPrime(value);
+    }
+
+    public long retainedFootprintBytes() {
+        return snapshot.footprintBytes();
+    }
+
+    public int cachedPrimeCount() {
+        return snapshot.index.size();
+    }
+
+    int[] cachedPrimes() {
+        final PrimeIndex index = snapshot.index;
+        return index.toArray(0, index.size());
+    }
+
+    /**
+     * Primality of every value in the batch, result i answering values[i]. The batch is partitioned in one pass:
+     * values below the sieve size are answered by bitmap probes as they are met, the rest are collected and tested
+     * with Miller-Rabin afterwards, across the configured cores when there are enough of them to be worth it.
+     */
+    public boolean[] isPrimeBatch(final long[] values) {
+
+        final SieveSnapshot cache = snapshot;
+        final boolean[] results = new boolean[values.length];
+        final int[] beyondSieve = new int[values.length];
+        int beyondSieveCount = 0;
+        for (int index = 0; index < values.length; index++) {
+            final long value = values[index];
+            if (value < cache.limit)
+                results[index] = value >= 2 && cache.bitmap.isPrime((int) value);
+            else
+                beyondSieve[beyondSieveCount++] = index;
+        }
+
+        if (beyondSieveCount < PARALLEL_BATCH_THRESHOLD || parallelism == 1) {
+            for (int index = 0; index < beyondSieveCount; index++)
+                results[beyondSieve[index]] = MillerRabin.isPrime(values[beyondSieve[index]]);
+        } else {
+            final IntStream tests = IntStream.range(0, beyondSieveCount).parallel();
+            queryPool().submit(() -> tests.forEach(index ->
+                    results[beyondSieve[index]] = MillerRabin.isPrime(values[beyondSieve[index]]))).join();
+        }
+        return results;
+    }
+
+    /**
+     * The rank-th prime greater than the value, sieving forward a window at a time.
+     */
+    private long primeAbove(final long value, final long rank) {
+
+        final long[] remaining = {rank};
+        final long[] located = {0};
+        BasePrimeTable basePrimes = null;
+        for (long from = value + 1; ; ) {
+            final long to = from + gapWindow(from, remaining[0]);
+            final long coverage = LucyPrimeCounter.squareRoot(to) + 1;
+            if (basePrimes == null || basePrimes.coverage() < coverage)
+                basePrimes = basePrimes(coverage);
+            new WindowSieve(basePrimes).forEachPrime(from, to, prime -> {
+                if (--remaining[0] > 0)
+                    return true;
+                located[0] = prime;
+                return false;
+            });
+            if (remaining[0] == 0)
+                return located[0];
+            from = to + 1;
+        }
+    }
 
-        int startIndex = 0, endIndex = 0, index = 0;
-        while (primeValueCache.get(index) <= end) {
-            final int locatedValue = primeValueCache.get(index);
-            if (locatedValue == start)
-                startIndex = index;
-            if (locatedValue < start)
-                startIndex = index + 1;
-            if (locatedValue <= end)
-                endIndex = index;
-            index++;
+    /**
+     * The prime that many primes below the largest prime not exceeding the value, sieving backward a window at a
+     * time.
+     */
+    private long primeAtOrBelow(final long value, final long skipped) {
+
+        long remaining = skipped;
+        final WindowSieve sieve = windowSieve(value);
+        for (long to = value; ; ) {
+            final long from = Math.max(2, to - gapWindow(to, remaining + 1));
+            final LongStream.Builder window = LongStream.builder();
+            sieve.forEachPrime(from, to, prime -> {
+                window.accept(prime);
+                return true;
+            });
+            final long[] primes = window.build().toArray();
+            if (primes.length > remaining)
+                return primes[(int) (primes.length - 1 - remaining)];
+            remaining -= primes.length;
+            to = from - 1;
+        }
+    }
+
+    private long gapWindow(final long value, final long primes) {
+        return Math.max(1 << 16, (long) (2 * primes * Math.log(value)));
+    }
+
+    /**
+     * A sieve for windows ending at or below the value, seeded with base primes up to its square root.
+     */
+    private WindowSieve windowSieve(final long to) {
+        return new WindowSieve(basePrimes(LucyPrimeCounter.squareRoot(to) + 1));
+    }
+
+    /**
+     * Base primes covering at least the given bound, taken from the cache and extended by sieving beyond it. The
+     * largest table built so far is kept, and grows at least twofold, so repeated windows reuse it. Only tables up
+     * to 2^24, enough for windows below 2^48, are kept: beyond that the kept table is streamed to the bound, the
+     * larger primes sieved from it in segments as the window sieve consumes them, so no more than the kept table
+     * is ever held.
+     */
+    BasePrimeTable basePrimes(final long coverage) {
+
+        if (coverage > MAX_RETAINED_BASE_COVERAGE)
+            return basePrimes(MAX_RETAINED_BASE_COVERAGE).streamTo(coverage);
+
+        BasePrimeTable table = basePrimeTable;
+        if (table != null && table.coverage() >= coverage)
+            return table;
+
+        synchronized (this) {
+            table = basePrimeTable;
+            if (table == null || table.coverage() < coverage) {
+                final long target = Math.min(MAX_RETAINED_BASE_COVERAGE,
+                        Math.max(coverage, table == null ? 0 : 2 * table.coverage()));
+                final SieveSnapshot cache = this.snapshot;
+                final int seedCoverage = (int) Math.min(target, cache.limit);
+                final int seedSize = seedCoverage < 2 ? 0 : cache.index.rank(seedCoverage - 1);
+                table = new BasePrimeTable(cache.index.toArray(0, seedSize), seedSize, seedCoverage)
+                        .extendTo(target);
+                basePrimeTable = table;
+            }
         }
+        return table;
+    }
+
+    private ForkJoinPool queryPool() {
+        if (queryPool == null)
+            synchronized (this) {
+                if (queryPool == null)
+                    queryPool = new ForkJoinPool(parallelism);
+            }
+        return queryPool;
+    }
+
+    /**
+     * Locates the cache indices of a range, returned as {start index inclusive, end index exclusive}. Both bounds are
+     * ranks in the cache, found by binary search or rank/select so the cost is independent of where in the cache the
+     * range lies, and an end beyond the largest cached prime simply selects through to the end of the cache.
+     */
+    private int[] locateRange(final SieveSnapshot cache, final int start, final int end) {
+
+        final long started = LOG.isDebugEnabled() ? System.nanoTime() : 0;
+
+        final int startIndex = cache.index.rank(start - 1);
+        final int endIndex = cache.index.rank(end);
 
         if (LOG.isDebugEnabled())
-            stopWatch.stop();
-        LOG.debug("Selection operation duration(ms): {}", stopWatch.getLastTaskTimeMillis());
+            LOG.debug("Selection operation duration(ns): {}", System.nanoTime() - started);
+
+        return new int[]{startIndex, endIndex};
+    }
 
-        return primeValueCache.subList(startIndex, endIndex + 1);
+    /**
+     * Rejects a range that cannot be harvested, without harvesting it, so a caller can validate a request before
+     * it commits to a response.
+     */
+    public void checkRange(final int start, final int end) {
+        isTrue(start <= end, "The start of a range must not be greater than its end.");
+        isTrue(start >= 2, "Primes can only be harvested for values greater than 2.");
+        isTrue(end < maxSieveSize, "Primes can only be harvested for values less than the maximum sieve size.");
     }
 
-    private void init() {
+    /**
+     * The latest snapshot, having waited up to the watermark timeout for one that covers the value if the cache is
+     * still being built, or grown the cache to cover it if the growth policy allows. Values at or beyond the
+     * maximum sieve size are never waited for.
+     */
+    private SieveSnapshot snapshotCovering(final long value) {
 
+        final SieveSnapshot cache = snapshot;
+        if (value < cache.limit || value >= maxSieveSize)
+            return cache;
+        if (value >= sieveSize)
+            return initialised ? grow((int) value) : cache;
+        if (initialised || watermarkTimeoutMillis == 0)
+            return cache;
+        try {
+            awaitWatermark(value, watermarkTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Primes in a range the cache does not cover yet, sieved on demand.
+     */
+    private int[] primesOnDemand(final SieveSnapshot cache, final int start, final int end) {
+        final long[] primes = primesForWindow(cache, start, end);
+        final int[] values = new int[primes.length];
+        for (int index = 0; index < primes.length; index++)
+            values[index] = (int) primes[index];
+        return values;
+    }
+
+    private void publish(final SieveSnapshot built) {
+        synchronized (watermarkMonitor) {
+            snapshot = built;
+            initialised = built.limit >= sieveSize;
+            watermarkMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Extends the cache to cover the value. Growth is serialised, but readers keep using the published snapshot
+     * until the extended one replaces it.
+     */
+    private SieveSnapshot grow(final int value) {
+        synchronized (growthMonitor) {
+            final SieveSnapshot cache = snapshot;
+            if (value < cache.limit)
+                return cache;
+            publish(extend(cache, growth.nextSize(cache.limit, value)));
+            return snapshot;
+        }
+    }
+
+    /**
+     * A snapshot for the larger size that sieves only the values beyond the current one. The wheel's storage is
+     * not extended in place, so a wheel sieve is rebuilt whole.
+     */
+    private SieveSnapshot extend(final SieveSnapshot cache, final int size) {
+
+        if (!(cache.bitmap instanceof OddPrimeBitmap) || cache.limit <= 2)
+            return init(size);
+
+        final StopWatch stopWatch = new StopWatch();
         if (LOG.isDebugEnabled())
             stopWatch.start();
-        primes = new boolean[sieveSize];
-        Arrays.fill(primes, true);
-        primes[0] = primes[1] = false;
+        final OddPrimeBitmap previous = (OddPrimeBitmap) cache.bitmap;
+        final OddPrimeBitmap bitmap = new OddPrimeBitmap(previous, size);
+        new SegmentedSieve((int) Math.round(Math.sqrt(size))).sieve(bitmap, previous.bitCount());
+        final PrimeIndex index = backing == CacheBacking.ARRAY
+                ? new ArrayPrimeIndex(appendPrimes(cache.index, bitmap, previous.bitCount()))
+                : new RankSelectPrimeIndex(bitmap);
 
-        for (int index = 2; index <= maxFactorSize; index++)
-            sieve(primes, sieveSize, index);
-        for (int index = 0; index < primes.length; index++)
-            if (primes[index])
-                primeValueCache.add(index);
+        if (LOG.isDebugEnabled()) {
+            stopWatch.stop();
+            LOG.debug("Prime cache grown from {} to {} values in {}ms.", formatter.format(cache.limit),
+                    formatter.format(size), formatter.format(stopWatch.getLastTaskTimeMillis()));
+        }
+        return new SieveSnapshot(size, bitmap, index);
+    }
 
+    private static int[] appendPrimes(final PrimeIndex index, final OddPrimeBitmap bitmap, final long fromBit) {
+
+        final long[] words = bitmap.words();
+        final int firstWord = (int) (fromBit >>> 6);
+        int added = 0;
+        for (int wordIndex = firstWord; wordIndex < words.length; wordIndex++)
+            added += Long.bitCount(wordIndex == firstWord ? words[wordIndex] & (-1L << fromBit) : words[wordIndex]);
+
+        final int[] primes = Arrays.copyOf(index.toArray(0, index.size()), index.size() + added);
+        int position = index.size();
+        for (int wordIndex = firstWord; wordIndex < words.length; wordIndex++) {
+            long word = wordIndex == firstWord ? words[wordIndex] & (-1L << fromBit) : words[wordIndex];
+            while (word != 0) {
+                primes[position++] = (int) (2 * (((long) wordIndex << 6) + Long.numberOfTrailingZeros(word)) + 1);
+                word &= word - 1;
+            }
+        }
+        return primes;
+    }
+
+    /**
+     * Builds and publishes successively larger snapshots up to the sieve size. Each stage is sieved afresh, so the
+     * stages together cost about a third more than a single build, in exchange for answering from the cache
+     * within milliseconds of construction.
+     */
+    private void buildStages() {
+
+        try {
+            for (int size = snapshot.limit; size < sieveSize; ) {
+                size = (int) Math.min(sieveSize, (long) STAGE_GROWTH * size);
+                publish(init(size));
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Watermark raised to {}.", formatter.format(size));
+            }
+        } catch (final RuntimeException | OutOfMemoryError e) {
+            LOG.error("Background initialisation stopped with the watermark at {}.", snapshot.limit, e);
+        }
+    }
+
+    private SieveSnapshot init(final int size) {
+
+        final StopWatch stopWatch = new StopWatch();
+        final int maxFactorSize = (int) Math.round(Math.sqrt(size));
         if (LOG.isDebugEnabled())
+            stopWatch.start();
+        PrimeBitmap primes = null;
+        PrimeIndex primeValueCache = null;
+        switch (engine) {
+            case MONOLITHIC:
+                primes = monolithicInit(size, maxFactorSize);
+                break;
+            case SEGMENTED:
+                final OddPrimeBitmap oddBitmap = new OddPrimeBitmap(size);
+                new SegmentedSieve(maxFactorSize).sieve(oddBitmap);
+                primes = oddBitmap;
+                break;
+            case WHEEL:
+                final WheelPrimeBitmap wheelBitmap = new WheelPrimeBitmap(size);
+                new WheelSieve(maxFactorSize).sieve(wheelBitmap);
+                primes = wheelBitmap;
+                break;
+            case PARALLEL:
+                final OddPrimeBitmap parallelBitmap = new OddPrimeBitmap(size);
+                final ParallelSegmentedSieve parallelSieve = new ParallelSegmentedSieve(maxFactorSize, parallelism);
+                if (backing == CacheBacking.ARRAY)
+                    primeValueCache = new ArrayPrimeIndex(parallelSieve.sieveAndHarvest(parallelBitmap));
+                else
+                    parallelSieve.sieve(parallelBitmap);
+                primes = parallelBitmap;
+                break;
+        }
+        if (primeValueCache == null)
+            primeValueCache = backing == CacheBacking.ARRAY
+                    ? new ArrayPrimeIndex(primes.toPrimeArray())
+                    : new RankSelectPrimeIndex((OddPrimeBitmap) primes);
+
+        final SieveSnapshot built = new SieveSnapshot(size, primes, primeValueCache);
+        if (LOG.isDebugEnabled()) {
             stopWatch.stop();
-        initialised = true;
-        LOG.debug("Harvest operation duration(ms): {}", formatter.format(stopWatch.getLastTaskTimeMillis()));
-        LOG.debug("Prime cache initialised with {} values, calculated at {} primes p/s.",
-                formatter.format(primes.length),
-                formatter.format(rate(primes.length, stopWatch.getLastTaskTimeMillis())));
+            LOG.debug("Harvest operation duration(ms): {}", formatter.format(stopWatch.getLastTaskTimeMillis()));
+            LOG.debug("Prime cache initialised with {} values using the {} engine and {} backing, calculated at {} "
+                    + "primes p/s.", formatter.format(size), engine, backing,
+                    formatter.format(rate(size, stopWatch.getLastTaskTimeMillis())));
+            LOG.debug("Retained footprint {} bytes, of which the sieve bitmap is {} bytes.",
+                    formatter.format(built.footprintBytes()), formatter.format(primes.footprintBytes()));
+        }
+        return built;
+    }
+
+    private OddPrimeBitmap monolithicInit(final int size, final int maxFactorSize) {
+
+        final boolean[] sieve = new boolean[size];
+        Arrays.fill(sieve, true);
+
+        for (int index = 2; index <= maxFactorSize; index++)
+            sieve(sieve, size, index);
+        final OddPrimeBitmap bitmap = new OddPrimeBitmap(size);
+        for (int index = 3; index < sieve.length; index += 2)
+            if (!sieve[index])
+                bitmap.clearBit(index >>> 1);
+        return bitmap;
     }
 
     private void sieve(final boolean[] primes, final int sieveSize, final int rhsFactor) {
@@ -123,4 +719,57 @@ public class OptimisedReadTimePrimeGenerator {
                 .divide(valueOf(timeInMillis == 0 ? 1 : timeInMillis), 8, RoundingMode.DOWN)
                 .multiply(BigDecimal.valueOf(1000)).intValue();
     }
-}
\ No newline at end of file
+
+    public static final class Builder {
+
+        private int sieveSize = 1 << 24;
+        private SieveEngine engine = SieveEngine.SEGMENTED;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private CacheBacking backing = CacheBacking.ARRAY;
+        private Initialisation initialisation = Initialisation.EAGER;
+        private long watermarkTimeoutMillis;
+        private SieveGrowth growth = SieveGrowth.NONE;
+
+        private Builder() {
+        }
+
+        public Builder sieveSize(final int sieveSize) {
+            this.sieveSize = sieveSize;
+            return this;
+        }
+
+        public Builder engine(final SieveEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        public Builder parallelism(final int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder backing(final CacheBacking backing) {
+            this.backing = backing;
+            return this;
+        }
+
+        /**
+         * How the cache is built; asynchronously built, values above the watermark are waited for up to the
+         * timeout before being sieved on demand.
+         */
+        public Builder initialisation(final Initialisation initialisation, final long watermarkTimeoutMillis) {
+            this.initialisation = initialisation;
+            this.watermarkTimeoutMillis = watermarkTimeoutMillis;
+            return this;
+        }
+
+        public Builder growth(final SieveGrowth growth) {
+            this.growth = growth;
+            return this;
+        }
+
+        public OptimisedReadTimePrimeGenerator build() {
+            return new OptimisedReadTimePrimeGenerator(this, null);
+        }
+    }
+}
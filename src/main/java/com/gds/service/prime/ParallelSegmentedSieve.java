@@ -0,0 +1,145 @@
+package com.gds.service.prime;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static org.springframework.util.Assert.state;
+
+/**
+ * Multi-core build of an {@link OddPrimeBitmap}. The bitmap is divided into word aligned segments, which share no
+ * words and can therefore be sieved independently as fork/join tasks. Each task also harvests the primes of its
+ * own segment; once every task has completed the per-segment results are concatenated in segment order, giving
+ * exactly the ascending prime array a single threaded build would produce. Callers that keep no array of primes
+ * can skip the harvest altogether.
+ * <p/>
+ */
+public class ParallelSegmentedSieve {
+
+    private static final int[] NO_PRIMES = new int[0];
+    private final int maxFactorSize;
+    private final int segmentSize;
+    private final int parallelism;
+
+    public ParallelSegmentedSieve(final int maxFactorSize, final int parallelism) {
+        this(maxFactorSize, SegmentedSieve.DEFAULT_SEGMENT_SIZE, parallelism);
+    }
+
+    public ParallelSegmentedSieve(final int maxFactorSize, final int segmentSize, final int parallelism) {
+        state(segmentSize > 0 && segmentSize % 64 == 0, "Segment size must be a positive multiple of 64.");
+        state(parallelism > 0, "Parallelism must be positive.");
+        this.maxFactorSize = maxFactorSize;
+        this.segmentSize = segmentSize;
+        this.parallelism = parallelism;
+    }
+
+    public void sieve(final OddPrimeBitmap bitmap) {
+        sieve(bitmap, null);
+    }
+
+    public int[] sieveAndHarvest(final OddPrimeBitmap bitmap) {
+
+        final int[][] segmentPrimes = new int[segmentCount(bitmap)][];
+        sieve(bitmap, segmentPrimes);
+
+        int count = bitmap.limit() > 2 ? 1 : 0;
+        for (final int[] segment : segmentPrimes)
+            count += segment.length;
+        final int[] primes = new int[count];
+        int index = 0;
+        if (bitmap.limit() > 2)
+            primes[index++] = 2;
+        for (final int[] segment : segmentPrimes) {
+            System.arraycopy(segment, 0, primes, index, segment.length);
+            index += segment.length;
+        }
+        return primes;
+    }
+
+    private void sieve(final OddPrimeBitmap bitmap, final int[][] segmentPrimes) {
+
+        final int[] basePrimes = SegmentedSieve.basePrimes(maxFactorSize);
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new SegmentTask(bitmap, basePrimes, segmentPrimes, 0, segmentCount(bitmap)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private int segmentCount(final OddPrimeBitmap bitmap) {
+        return (int) ((bitmap.bitCount() + segmentSize - 1) / segmentSize);
+    }
+
+    /**
+     * Sieves a run of segments, splitting it in two until each task holds one. Tasks are only ever run within the
+     * pool, never serialised, so the serialisation warnings RecursiveAction brings with it are suppressed.
+     */
+    @SuppressWarnings("serial")
+    private final class SegmentTask extends RecursiveAction {
+
+        private final OddPrimeBitmap bitmap;
+        private final int[] basePrimes;
+        private final int[][] segmentPrimes;
+        private final int fromSegment;
+        private final int toSegment;
+
+        private SegmentTask(final OddPrimeBitmap bitmap, final int[] basePrimes, final int[][] segmentPrimes,
+                            final int fromSegment, final int toSegment) {
+            this.bitmap = bitmap;
+            this.basePrimes = basePrimes;
+            this.segmentPrimes = segmentPrimes;
+            this.fromSegment = fromSegment;
+            this.toSegment = toSegment;
+        }
+
+        @Override
+        protected void compute() {
+            if (toSegment - fromSegment > 1) {
+                final int middle = (fromSegment + toSegment) >>> 1;
+                invokeAll(new SegmentTask(bitmap, basePrimes, segmentPrimes, fromSegment, middle),
+                        new SegmentTask(bitmap, basePrimes, segmentPrimes, middle, toSegment));
+            } else if (toSegment > fromSegment) {
+                final long low = (long) fromSegment * segmentSize;
+                final long high = Math.min(low + segmentSize, bitmap.bitCount());
+                sieveSegment(low, high);
+                if (segmentPrimes != null)
+                    segmentPrimes[fromSegment] = harvestSegment(low, high);
+            }
+        }
+
+        private void sieveSegment(final long low, final long high) {
+            final long[] words = bitmap.words();
+            for (int index = 1; index < basePrimes.length; index++) {
+                final int factor = basePrimes[index];
+                long bit = ((long) factor * factor) >>> 1;
+                if (bit < low)
+                    bit += (low - bit + factor - 1) / factor * factor;
+                for (; bit < high; bit += factor)
+                    words[(int) (bit >>> 6)] &= ~(1L << bit);
+            }
+        }
+
+        private int[] harvestSegment(final long low, final long high) {
+            final long[] words = bitmap.words();
+            final int fromWord = (int) (low >>> 6);
+            final int toWord = (int) ((high + 63) >>> 6);
+            int count = 0;
+            for (int wordIndex = fromWord; wordIndex < toWord; wordIndex++)
+                count += Long.bitCount(words[wordIndex]);
+            if (count == 0)
+                return NO_PRIMES;
+
+            final int[] primes = new int[count];
+            int index = 0;
+            for (int wordIndex = fromWord; wordIndex < toWord; wordIndex++) {
+                long word = words[wordIndex];
+                while (word != 0) {
+                    final long bit = ((long) wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                    primes[index++] = (int) (2 * bit + 1);
+                    word &= word - 1;
+                }
+            }
+            return primes;
+        }
+    }
+}
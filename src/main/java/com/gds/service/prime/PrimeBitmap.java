@@ -0,0 +1,33 @@
+package com.gds.service.prime;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Sieve storage recording the primality of every integer below a limit.
+ * <p/>
+ */
+public interface PrimeBitmap {
+
+    boolean isPrime(int value);
+
+    /**
+     * Hands every prime below the limit to the consumer, in ascending order.
+     */
+    void forEachPrime(IntConsumer primeConsumer);
+
+    /**
+     * Number of primes below the limit.
+     */
+    int count();
+
+    int limit();
+
+    long footprintBytes();
+
+    default int[] toPrimeArray() {
+        final int[] primes = new int[count()];
+        final int[] index = {0};
+        forEachPrime(prime -> primes[index[0]++] = prime);
+        return primes;
+    }
+}
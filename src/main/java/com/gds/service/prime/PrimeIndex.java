@@ -0,0 +1,41 @@
+package com.gds.service.prime;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+/**
+ * Ordered view of the primes below the sieve size, addressed by index: index 0 is 2, index 1 is 3 and so on.
+ * <p/>
+ */
+public interface PrimeIndex {
+
+    /**
+     * Number of primes held, pi(limit - 1).
+     */
+    int size();
+
+    /**
+     * The prime at the given zero based index.
+     */
+    int primeAt(int index);
+
+    /**
+     * Number of primes less than or equal to the value, pi(value). Equally, the index of the first prime greater
+     * than the value.
+     */
+    int rank(int value);
+
+    int[] toArray(int fromIndex, int toIndex);
+
+    IntStream stream(int fromIndex, int toIndex);
+
+    /**
+     * Primitive, exactly sized spliterator over the primes in [fromIndex, toIndex), splitting evenly by index.
+     */
+    Spliterator.OfInt spliterator(int fromIndex, int toIndex);
+
+    List<Integer> asList(int fromIndex, int toIndex);
+
+    long footprintBytes();
+}
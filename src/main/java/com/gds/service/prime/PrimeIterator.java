@@ -0,0 +1,65 @@
+package com.gds.service.prime;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongFunction;
+
+/**
+ * Unbounded, ascending iterator over the primes from a starting value. Primes below the sieve size are read from
+ * the cache, after which successive windows are sieved on demand, each a segment at a time, so the memory held is
+ * the current segment plus the base primes for the window. Windows start at 2^24 values and double up to 2^32,
+ * which amortises setting up the base primes for each window as the iterator moves further out; the base primes
+ * are kept from one window to the next while they still reach far enough. The iterator is exhausted only at
+ * Long.MAX_VALUE.
+ * <p/>
+ */
+public class PrimeIterator implements PrimitiveIterator.OfLong {
+
+    private static final long MIN_WINDOW = 1L << 24;
+    private static final long MAX_WINDOW = 1L << 32;
+    private final PrimeIndex cache;
+    private final LongFunction<BasePrimeTable> basePrimes;
+    private int cacheIndex;
+    private long windowStart;
+    private long windowSize = MIN_WINDOW;
+    private PrimitiveIterator.OfLong window;
+    private BasePrimeTable basePrimeTable;
+
+    PrimeIterator(final PrimeIndex cache, final int cacheLimit, final LongFunction<BasePrimeTable> basePrimes,
+                  final long from) {
+        this.cache = cache;
+        this.basePrimes = basePrimes;
+        this.cacheIndex = from <= 2 ? 0 : from > cacheLimit ? cache.size() : cache.rank((int) from - 1);
+        this.windowStart = Math.max(from, cacheLimit);
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        if (cacheIndex < cache.size())
+            return true;
+        while (window == null || !window.hasNext()) {
+            if (windowStart < 0)
+                return false;
+            final long windowEnd = Long.MAX_VALUE - windowStart < windowSize ? Long.MAX_VALUE
+                    : windowStart + windowSize - 1;
+            final long coverage = LucyPrimeCounter.squareRoot(windowEnd) + 1;
+            if (basePrimeTable == null || basePrimeTable.coverage() < coverage)
+                basePrimeTable = basePrimes.apply(coverage);
+            window = new WindowSieve(basePrimeTable).iterator(windowStart, windowEnd);
+            windowStart = windowEnd == Long.MAX_VALUE ? -1 : windowEnd + 1;
+            windowSize = Math.min(2 * windowSize, MAX_WINDOW);
+        }
+        return true;
+    }
+
+    @Override
+    public long nextLong() {
+
+        if (!hasNext())
+            throw new NoSuchElementException();
+        if (cacheIndex < cache.size())
+            return cache.primeAt(cacheIndex++);
+        return window.nextLong();
+    }
+}
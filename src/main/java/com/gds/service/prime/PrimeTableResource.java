@@ -0,0 +1,146 @@
+package com.gds.service.prime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.IntStream;
+
+import static org.springframework.util.Assert.state;
+
+/**
+ * Compact table of the primes below a limit, generated by the build and carried in the jar as a classpath
+ * resource so that a generator can start without sieving. The table is little endian: a 24 byte header holding a
+ * magic number, the format version, the limit, the number of primes, the block size and the number of blocks;
+ * then the block index, the first prime of each block of 1024; then, for every other prime, one byte holding half
+ * its gap from the previous prime, or zero for the single odd gap from 2 to 3. No gap between primes below 2^31
+ * exceeds 292, so a byte always suffices and the table is about a quarter of the size of an int array.
+ * <p/>
+ * Each block decodes independently from its indexed first prime, so the blocks are decoded in parallel.
+ * <p/>
+ */
+public final class PrimeTableResource {
+
+    public static final String DEFAULT_RESOURCE = "/prime-table.bin";
+    static final int MAGIC = 0x50524D54;
+    static final int VERSION = 1;
+    private static final Logger LOG = LoggerFactory.getLogger(PrimeTableResource.class);
+    private static final int HEADER_BYTES = 24;
+    private static final int BLOCK_SIZE = 1024;
+
+    private PrimeTableResource() {
+    }
+
+    /**
+     * Sieves the primes below the given size and writes their table to the given file, as run by the build.
+     */
+    public static void main(final String[] args) throws IOException {
+
+        state(args.length == 2, "Usage: PrimeTableResource <table file> <sieve size>");
+        final Path file = Paths.get(args[0]).toAbsolutePath();
+        final int sieveSize = Integer.parseInt(args[1]);
+        final int[] primes = new OptimisedReadTimePrimeGenerator(sieveSize).cachedPrimes();
+
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(primes, sieveSize, out);
+        }
+        LOG.info("Wrote {} primes below {} to {}, {} bytes.", primes.length, sieveSize, file, Files.size(file));
+    }
+
+    static void write(final int[] primes, final int limit, final OutputStream out) throws IOException {
+
+        final int blocks = (primes.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + 4 * blocks).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(limit).putInt(primes.length).putInt(BLOCK_SIZE).putInt(blocks);
+        for (int block = 0; block < blocks; block++)
+            header.putInt(primes[block * BLOCK_SIZE]);
+        out.write(header.array());
+
+        final byte[] gaps = new byte[primes.length - blocks];
+        for (int index = 1, position = 0; index < primes.length; index++) {
+            if (index % BLOCK_SIZE == 0)
+                continue;
+            final int gap = primes[index] - primes[index - 1];
+            state(gap == 1 || gap % 2 == 0 && gap < 512, "Prime gap cannot be encoded: " + gap);
+            gaps[position++] = (byte) (gap == 1 ? 0 : gap >>> 1);
+        }
+        out.write(gaps);
+    }
+
+    /**
+     * Loads a table from the classpath, reading everything after the header in one bulk read.
+     *
+     * @throws IOException if the resource is missing, truncated, or not a table of a supported version
+     */
+    static SieveSnapshot load(final String resource) throws IOException {
+
+        try (InputStream in = PrimeTableResource.class.getResourceAsStream(resource)) {
+            if (in == null)
+                throw new FileNotFoundException("Prime table resource not found: " + resource);
+            return read(in, resource);
+        }
+    }
+
+    /**
+     * Reads a table from the stream, which must hold the table and nothing after it.
+     */
+    static SieveSnapshot read(final InputStream in, final String resource) throws IOException {
+
+        final DataInputStream data = new DataInputStream(in);
+        final byte[] headerBytes = new byte[HEADER_BYTES];
+        data.readFully(headerBytes);
+        final ByteBuffer header = ByteBuffer.wrap(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt() != MAGIC)
+            throw new IOException("Not a prime table: " + resource);
+        final int version = header.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported prime table version " + version + ": " + resource);
+        final int limit = header.getInt();
+        final int count = header.getInt();
+        final int blockSize = header.getInt();
+        final int blocks = header.getInt();
+        if (limit < 0 || count < 0 || blockSize <= 0
+                || blocks != (int) ((count + (long) blockSize - 1) / blockSize))
+            throw new IOException("Prime table header is inconsistent: " + resource);
+
+        final byte[] body = new byte[(int) (4L * blocks + count - blocks)];
+        data.readFully(body);
+        if (in.read() >= 0)
+            throw new IOException("Prime table has trailing data: " + resource);
+
+        final int[] primes = decode(body, count, blockSize, blocks);
+        if (count > 0 && primes[count - 1] >= limit)
+            throw new IOException("Prime table exceeds its limit: " + resource);
+        return new SieveSnapshot(limit, new OddPrimeBitmap(limit, primes), new ArrayPrimeIndex(primes));
+    }
+
+    private static int[] decode(final byte[] body, final int count, final int blockSize, final int blocks) {
+
+        final ByteBuffer index = ByteBuffer.wrap(body, 0, 4 * blocks).order(ByteOrder.LITTLE_ENDIAN);
+        final int gapOffset = 4 * blocks;
+        final int[] primes = new int[count];
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            final int first = block * blockSize;
+            final int last = Math.min(first + blockSize, count);
+            int prime = index.getInt(4 * block);
+            primes[first] = prime;
+            for (int position = first + 1, gap = gapOffset + first - block; position < last; position++, gap++) {
+                final int half = body[gap] & 0xFF;
+                prime += half == 0 ? 1 : 2 * half;
+                primes[position] = prime;
+            }
+        });
+        return primes;
+    }
+}
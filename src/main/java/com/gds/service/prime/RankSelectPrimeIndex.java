@@ -0,0 +1,223 @@
+package com.gds.service.prime;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Succinct {@link PrimeIndex} over an {@link OddPrimeBitmap}. The bitmap is divided into blocks of 512 bits, and
+ * a checkpoint records the number of primes before each block. Rank is then a checkpoint read plus at most eight
+ * word popcounts, constant time whatever the value; select binary searches the checkpoints and scans a single
+ * block.
+ * <p/>
+ * The checkpoints add 1/128 to the size of the bitmap, against four bytes per prime for an array of values.
+ * <p/>
+ */
+public class RankSelectPrimeIndex implements PrimeIndex {
+
+    private static final int BLOCK_SHIFT = 9;
+    private static final int WORDS_PER_BLOCK = 1 << (BLOCK_SHIFT - 6);
+    private final OddPrimeBitmap bitmap;
+    private final long[] words;
+    private final int[] checkpoints;
+    private final int evenPrimes;
+    private final int size;
+
+    public RankSelectPrimeIndex(final OddPrimeBitmap bitmap) {
+        this.bitmap = bitmap;
+        words = bitmap.words();
+        evenPrimes = bitmap.limit() > 2 ? 1 : 0;
+        checkpoints = new int[(words.length + WORDS_PER_BLOCK - 1) / WORDS_PER_BLOCK + 1];
+        int count = 0;
+        for (int wordIndex = 0; wordIndex < words.length; wordIndex++) {
+            if (wordIndex % WORDS_PER_BLOCK == 0)
+                checkpoints[wordIndex / WORDS_PER_BLOCK] = count;
+            count += Long.bitCount(words[wordIndex]);
+        }
+        checkpoints[checkpoints.length - 1] = count;
+        size = evenPrimes + count;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int primeAt(final int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (index < evenPrimes)
+            return 2;
+        return (int) (2 * select(index - evenPrimes) + 1);
+    }
+
+    @Override
+    public int rank(final int value) {
+        if (value < 2)
+            return 0;
+        final int clamped = Math.min(value, bitmap.limit() - 1);
+        return evenPrimes + rankBits(((long) clamped + 1) >>> 1);
+    }
+
+    @Override
+    public int[] toArray(final int fromIndex, final int toIndex) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > size)
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex);
+
+        final int[] primes = new int[toIndex - fromIndex];
+        int index = 0;
+        if (fromIndex < evenPrimes && toIndex > fromIndex)
+            primes[index++] = 2;
+        if (index == primes.length)
+            return primes;
+
+        final long firstBit = select(fromIndex + index - evenPrimes);
+        int wordIndex = (int) (firstBit >>> 6);
+        long word = words[wordIndex] & (-1L << firstBit);
+        while (index < primes.length) {
+            while (word == 0)
+                word = words[++wordIndex];
+            primes[index++] = (int) (2 * (((long) wordIndex << 6) + Long.numberOfTrailingZeros(word)) + 1);
+            word &= word - 1;
+        }
+        return primes;
+    }
+
+    @Override
+    public IntStream stream(final int fromIndex, final int toIndex) {
+        return StreamSupport.intStream(spliterator(fromIndex, toIndex), false);
+    }
+
+    @Override
+    public Spliterator.OfInt spliterator(final int fromIndex, final int toIndex) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > size)
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex);
+        return new RankSelectSpliterator(fromIndex, toIndex);
+    }
+
+    @Override
+    public List<Integer> asList(final int fromIndex, final int toIndex) {
+        final int[] primes = toArray(fromIndex, toIndex);
+        return new IntArrayListAdapter(primes, 0, primes.length);
+    }
+
+    @Override
+    public long footprintBytes() {
+        return 16L + 4L * checkpoints.length;
+    }
+
+    /**
+     * Splits by index, the split point located by select, and reads bits directly once advanced.
+     */
+    private final class RankSelectSpliterator implements Spliterator.OfInt {
+
+        private int index;
+        private final int toIndex;
+        private int wordIndex = -1;
+        private long word;
+
+        private RankSelectSpliterator(final int fromIndex, final int toIndex) {
+            this.index = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            final int middle = (index + toIndex) >>> 1;
+            if (wordIndex >= 0 || middle <= index)
+                return null;
+            final Spliterator.OfInt prefix = new RankSelectSpliterator(index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(final IntConsumer action) {
+            if (index >= toIndex)
+                return false;
+            action.accept(next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final IntConsumer action) {
+            while (index < toIndex)
+                action.accept(next());
+        }
+
+        @Override
+        public long estimateSize() {
+            return toIndex - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL
+                    | Spliterator.IMMUTABLE | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
+
+        private int next() {
+            if (index++ < evenPrimes)
+                return 2;
+            if (wordIndex < 0) {
+                final long firstBit = select(index - 1 - evenPrimes);
+                wordIndex = (int) (firstBit >>> 6);
+                word = words[wordIndex] & (-1L << firstBit);
+            }
+            while (word == 0)
+                word = words[++wordIndex];
+            final long bit = ((long) wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            return (int) (2 * bit + 1);
+        }
+    }
+
+    /**
+     * Number of set bits in [0, bits).
+     */
+    private int rankBits(final long bits) {
+        final int wordIndex = (int) (bits >>> 6);
+        int count = checkpoints[wordIndex / WORDS_PER_BLOCK];
+        for (int index = wordIndex - wordIndex % WORDS_PER_BLOCK; index < wordIndex; index++)
+            count += Long.bitCount(words[index]);
+        if ((bits & 63) != 0)
+            count += Long.bitCount(words[wordIndex] & ((1L << bits) - 1));
+        return count;
+    }
+
+    /**
+     * Position of the set bit with the given zero based rank.
+     */
+    private long select(final int rank) {
+        int low = 0, high = checkpoints.length - 1;
+        while (high - low > 1) {
+            final int middle = (low + high) >>> 1;
+            if (checkpoints[middle] <= rank)
+                low = middle;
+            else
+                high = middle;
+        }
+
+        int remaining = rank - checkpoints[low];
+        int wordIndex = low * WORDS_PER_BLOCK;
+        int wordCount = Long.bitCount(words[wordIndex]);
+        while (wordCount <= remaining) {
+            remaining -= wordCount;
+            wordCount = Long.bitCount(words[++wordIndex]);
+        }
+
+        long word = words[wordIndex];
+        for (; remaining > 0; remaining--)
+            word &= word - 1;
+        return ((long) wordIndex << 6) + Long.numberOfTrailingZeros(word);
+    }
+}
@@ -0,0 +1,88 @@
+package com.gds.service.prime;
+
+import static org.springframework.util.Assert.state;
+
+/**
+ * Segmented sieve of Eratosthenes. Rather than sweeping the whole range for every factor, the bitmap is processed
+ * in fixed size windows that fit in the processor cache. Each window is crossed off using the odd base primes up to
+ * the maximum factor, remembering for each base prime where its next multiple falls so that no window is re-scanned.
+ * <p/>
+ * Works directly on an {@link OddPrimeBitmap}, the segment size being expressed in bitmap bits, each of which
+ * represents one odd integer.
+ * <p/>
+ */
+public class SegmentedSieve {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 18;
+    private final int maxFactorSize;
+    private final int segmentSize;
+
+    public SegmentedSieve(final int maxFactorSize) {
+        this(maxFactorSize, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public SegmentedSieve(final int maxFactorSize, final int segmentSize) {
+        state(segmentSize > 0, "Segment size must be positive.");
+        this.maxFactorSize = maxFactorSize;
+        this.segmentSize = segmentSize;
+    }
+
+    public void sieve(final OddPrimeBitmap bitmap) {
+        sieve(bitmap, 0);
+    }
+
+    /**
+     * Sieves only the bits from the given one onwards, those below it having been sieved already, as when a bitmap
+     * is extended.
+     */
+    public void sieve(final OddPrimeBitmap bitmap, final long fromBit) {
+
+        final int[] basePrimes = basePrimes(maxFactorSize);
+        final long[] nextBits = new long[basePrimes.length];
+        for (int index = 1; index < basePrimes.length; index++) {
+            final long factor = basePrimes[index];
+            nextBits[index] = (factor * factor) >>> 1;
+            if (nextBits[index] < fromBit) {
+                long multiple = (2 * fromBit + factor) / factor * factor;
+                if ((multiple & 1) == 0)
+                    multiple += factor;
+                nextBits[index] = multiple >>> 1;
+            }
+        }
+
+        final long[] words = bitmap.words();
+        final long bitCount = bitmap.bitCount();
+        for (long low = fromBit; low < bitCount; low += segmentSize) {
+            final long high = Math.min(low + segmentSize, bitCount);
+            for (int index = 1; index < basePrimes.length; index++) {
+                final int factor = basePrimes[index];
+                long bit = nextBits[index];
+                for (; bit < high; bit += factor)
+                    words[(int) (bit >>> 6)] &= ~(1L << bit);
+                nextBits[index] = bit;
+            }
+        }
+    }
+
+    static int[] basePrimes(final int maxFactorSize) {
+
+        if (maxFactorSize < 2)
+            return new int[0];
+
+        final boolean[] composites = new boolean[maxFactorSize + 1];
+        int count = 0;
+        for (int candidate = 2; candidate <= maxFactorSize; candidate++) {
+            if (composites[candidate])
+                continue;
+            count++;
+            for (long multiple = (long) candidate * candidate; multiple <= maxFactorSize; multiple += candidate)
+                composites[(int) multiple] = true;
+        }
+
+        final int[] basePrimes = new int[count];
+        for (int candidate = 2, index = 0; candidate <= maxFactorSize; candidate++)
+            if (!composites[candidate])
+                basePrimes[index++] = candidate;
+        return basePrimes;
+    }
+}
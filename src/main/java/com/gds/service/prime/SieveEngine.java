@@ -0,0 +1,31 @@
+package com.gds.service.prime;
+
+/**
+ * Selects the algorithm used by {@link OptimisedReadTimePrimeGenerator} to build its prime cache.
+ * <p/>
+ */
+public enum SieveEngine {
+
+    /**
+     * The original engine, a single array covering the whole sieve that is swept in full for every factor.
+     * Retained as a reference point for benchmarking.
+     */
+    MONOLITHIC,
+
+    /**
+     * Sieve of Eratosthenes applied to fixed size, cache sized windows, seeded by the base primes up to the
+     * square root of the sieve size.
+     */
+    SEGMENTED,
+
+    /**
+     * Segmented sieve over mod 30 wheel storage, one byte per 30 integers, skipping the multiples of 2, 3 and 5.
+     */
+    WHEEL,
+
+    /**
+     * Segmented sieve over odd-only storage with the segments sieved and harvested concurrently as fork/join tasks,
+     * parallelism being configured on the generator.
+     */
+    PARALLEL
+}
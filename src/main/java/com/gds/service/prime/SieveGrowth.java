@@ -0,0 +1,49 @@
+package com.gds.service.prime;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Growth policy for {@link OptimisedReadTimePrimeGenerator}: how far the cache is extended when a query reaches
+ * beyond it, and the sieve size it may never exceed. The cache either doubles, or grows by a fixed chunk, as many
+ * times as it takes to cover the query.
+ * <p/>
+ */
+public final class SieveGrowth {
+
+    /**
+     * The cache never grows beyond the sieve size chosen at construction.
+     */
+    public static final SieveGrowth NONE = new SieveGrowth(0, 0);
+    private final int chunkSize;
+    private final int maxSieveSize;
+
+    private SieveGrowth(final int chunkSize, final int maxSieveSize) {
+        this.chunkSize = chunkSize;
+        this.maxSieveSize = maxSieveSize;
+    }
+
+    public static SieveGrowth doubling(final int maxSieveSize) {
+        isTrue(maxSieveSize > 0, "The maximum sieve size must be positive.");
+        return new SieveGrowth(0, maxSieveSize);
+    }
+
+    public static SieveGrowth fixedChunks(final int chunkSize, final int maxSieveSize) {
+        isTrue(chunkSize > 0, "The growth chunk must be positive.");
+        isTrue(maxSieveSize > 0, "The maximum sieve size must be positive.");
+        return new SieveGrowth(chunkSize, maxSieveSize);
+    }
+
+    public int maxSieveSize() {
+        return maxSieveSize;
+    }
+
+    /**
+     * The sieve size to grow to from the current size so that the value is covered, capped at the maximum.
+     */
+    int nextSize(final int current, final int value) {
+        long next = Math.max(current, 1);
+        while (next <= value)
+            next = chunkSize == 0 ? 2 * next : next + chunkSize;
+        return (int) Math.min(next, maxSieveSize);
+    }
+}
@@ -0,0 +1,24 @@
+package com.gds.service.prime;
+
+/**
+ * Immutable pairing of a sieve bitmap and the prime cache built from it, covering every value below the limit.
+ * The generator publishes each snapshot with a single volatile write, so a query reads the bitmap and the cache
+ * from the same snapshot and never sees one half built.
+ * <p/>
+ */
+final class SieveSnapshot {
+
+    final int limit;
+    final PrimeBitmap bitmap;
+    final PrimeIndex index;
+
+    SieveSnapshot(final int limit, final PrimeBitmap bitmap, final PrimeIndex index) {
+        this.limit = limit;
+        this.bitmap = bitmap;
+        this.index = index;
+    }
+
+    long footprintBytes() {
+        return bitmap.footprintBytes() + index.footprintBytes();
+    }
+}
@@ -0,0 +1,139 @@
+package com.gds.service.prime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent form of a {@link SieveSnapshot}, written once and memory mapped read only on later starts. The file
+ * is little endian: a 32 byte header holding a magic number, the format version, the sieve limit, the number of
+ * primes, the number of bitmap words and a CRC-32 of everything after the header; then the odd-only bitmap words;
+ * then the primes in ascending order. Each section is mapped separately, so neither is limited by the 2GB
+ * ceiling of a single mapping.
+ * <p/>
+ * A file is written beside its destination and moved into place, so a concurrent reader never maps one half
+ * written.
+ * <p/>
+ */
+final class SieveSnapshotFile {
+
+    static final int MAGIC = 0x50524D53;
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int WRITE_CHUNK_BYTES = 1 << 20;
+
+    private SieveSnapshotFile() {
+    }
+
+    static void write(final SieveSnapshot snapshot, final Path file) throws IOException {
+
+        final long[] words = bitmapWords(snapshot);
+        final PrimeIndex index = snapshot.index;
+        final Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        final CRC32 checksum = new CRC32();
+
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_BYTES);
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (final long word : words) {
+                if (buffer.remaining() < Long.BYTES)
+                    drain(buffer, channel, checksum);
+                buffer.putLong(word);
+            }
+            for (int position = 0; position < index.size(); position++) {
+                if (buffer.remaining() < Integer.BYTES)
+                    drain(buffer, channel, checksum);
+                buffer.putInt(index.primeAt(position));
+            }
+            drain(buffer, channel, checksum);
+
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(snapshot.limit).putInt(index.size()).putInt(words.length)
+                    .putInt(0).putLong(checksum.getValue());
+            header.flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps the file read only, checking its header, length and checksum before trusting it.
+     */
+    static SieveSnapshot map(final Path file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES)
+                throw new IOException("Not a sieve snapshot: " + file);
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining())
+                if (channel.read(header, header.position()) < 0)
+                    throw new IOException("Not a sieve snapshot: " + file);
+            header.flip();
+            if (header.getInt() != MAGIC)
+                throw new IOException("Not a sieve snapshot: " + file);
+            final int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported sieve snapshot version " + version + ": " + file);
+            final int limit = header.getInt();
+            final int primeCount = header.getInt();
+            final int wordCount = header.getInt();
+            header.getInt();
+            final long expectedChecksum = header.getLong();
+
+            final long wordBytes = 8L * wordCount;
+            final long primeBytes = 4L * primeCount;
+            if (limit < 0 || primeCount < 0 || wordCount != (int) ((limit / 2 + 63L) >>> 6)
+                    || channel.size() != HEADER_BYTES + wordBytes + primeBytes)
+                throw new IOException("Sieve snapshot is truncated or inconsistent: " + file);
+
+            final MappedByteBuffer wordSection = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, wordBytes);
+            final MappedByteBuffer primeSection = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_BYTES + wordBytes, primeBytes);
+            final CRC32 checksum = new CRC32();
+            checksum.update(wordSection.duplicate());
+            checksum.update(primeSection.duplicate());
+            if (checksum.getValue() != expectedChecksum)
+                throw new IOException("Sieve snapshot checksum mismatch: " + file);
+
+            return new SieveSnapshot(limit,
+                    new MappedPrimeBitmap(limit, wordSection.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer()),
+                    new MappedPrimeIndex(primeSection.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer()));
+        }
+    }
+
+    /**
+     * The odd-only bitmap words of the snapshot, read directly from an odd-only bitmap and otherwise rebuilt from
+     * the cache.
+     */
+    private static long[] bitmapWords(final SieveSnapshot snapshot) {
+
+        if (snapshot.bitmap instanceof OddPrimeBitmap)
+            return ((OddPrimeBitmap) snapshot.bitmap).words();
+        final long[] words = new long[(int) ((snapshot.limit / 2 + 63L) >>> 6)];
+        final PrimeIndex index = snapshot.index;
+        for (int position = 0; position < index.size(); position++) {
+            final int prime = index.primeAt(position);
+            if (prime > 2)
+                words[prime >>> 7] |= 1L << (prime >>> 1);
+        }
+        return words;
+    }
+
+    private static void drain(final ByteBuffer buffer, final FileChannel channel, final CRC32 checksum)
+            throws IOException {
+        buffer.flip();
+        checksum.update(buffer.duplicate());
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+}
@@ -0,0 +1,91 @@
+package com.gds.service.prime;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Mod 30 wheel factorised sieve storage. Each byte covers 30 consecutive integers through the 8 residues coprime to
+ * 2, 3 and 5, so byte <code>i</code>, bit <code>j</code> represents the value <code>30i + RESIDUES[j]</code>. A set
+ * bit marks a prime; the wheel primes 2, 3 and 5 themselves are answered without storage.
+ * <p/>
+ * Roughly one thirtieth of the space of one boolean per integer.
+ * <p/>
+ */
+public class WheelPrimeBitmap implements PrimeBitmap {
+
+    static final int WHEEL = 30;
+    static final int[] RESIDUES = {1, 7, 11, 13, 17, 19, 23, 29};
+    static final int[] GAPS = {6, 4, 2, 4, 2, 4, 6, 2};
+    static final int[] RESIDUE_INDEX = new int[WHEEL];
+    private static final int[] WHEEL_PRIMES = {2, 3, 5};
+
+    static {
+        Arrays.fill(RESIDUE_INDEX, -1);
+        for (int index = 0; index < RESIDUES.length; index++)
+            RESIDUE_INDEX[RESIDUES[index]] = index;
+    }
+
+    private final int limit;
+    private final byte[] bytes;
+
+    public WheelPrimeBitmap(final int limit) {
+        this.limit = Math.max(limit, 0);
+        bytes = new byte[(int) ((this.limit + (long) WHEEL - 1) / WHEEL)];
+        Arrays.fill(bytes, (byte) 0xFF);
+        if (bytes.length > 0) {
+            bytes[0] &= ~1;
+            for (int bit = 0; bit < RESIDUES.length; bit++)
+                if ((long) (bytes.length - 1) * WHEEL + RESIDUES[bit] >= this.limit)
+                    bytes[bytes.length - 1] &= (byte) ~(1 << bit);
+        }
+    }
+
+    @Override
+    public boolean isPrime(final int value) {
+        if (value < 2 || value >= limit)
+            return false;
+        final int bit = RESIDUE_INDEX[value % WHEEL];
+        if (bit < 0)
+            return value == 2 || value == 3 || value == 5;
+        return (bytes[value / WHEEL] & (1 << bit)) != 0;
+    }
+
+    @Override
+    public void forEachPrime(final IntConsumer primeConsumer) {
+        for (final int wheelPrime : WHEEL_PRIMES)
+            if (wheelPrime < limit)
+                primeConsumer.accept(wheelPrime);
+        for (int index = 0; index < bytes.length; index++) {
+            int bits = bytes[index] & 0xFF;
+            while (bits != 0) {
+                primeConsumer.accept(index * WHEEL + RESIDUES[Integer.numberOfTrailingZeros(bits)]);
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    @Override
+    public int count() {
+        int count = 0;
+        for (final int wheelPrime : WHEEL_PRIMES)
+            if (wheelPrime < limit)
+                count++;
+        for (final byte wheelByte : bytes)
+            count += Integer.bitCount(wheelByte & 0xFF);
+        return count;
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return 16L + bytes.length;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,61 @@
+package com.gds.service.prime;
+
+import static com.gds.service.prime.WheelPrimeBitmap.GAPS;
+import static com.gds.service.prime.WheelPrimeBitmap.RESIDUES;
+import static com.gds.service.prime.WheelPrimeBitmap.RESIDUE_INDEX;
+import static com.gds.service.prime.WheelPrimeBitmap.WHEEL;
+import static org.springframework.util.Assert.state;
+
+/**
+ * Segmented sieve of Eratosthenes over a {@link WheelPrimeBitmap}. Each base prime above 5 only visits the
+ * multiples whose co-factor is itself coprime to 30, stepping the co-factor around the wheel, so the multiples of
+ * 2, 3 and 5 (roughly 73% of all multiples) are never marked.
+ * <p/>
+ * The segment size is expressed in wheel bytes, each covering 30 integers.
+ * <p/>
+ */
+public class WheelSieve {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 15;
+    private final int maxFactorSize;
+    private final int segmentSize;
+
+    public WheelSieve(final int maxFactorSize) {
+        this(maxFactorSize, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public WheelSieve(final int maxFactorSize, final int segmentSize) {
+        state(segmentSize > 0, "Segment size must be positive.");
+        this.maxFactorSize = maxFactorSize;
+        this.segmentSize = segmentSize;
+    }
+
+    public void sieve(final WheelPrimeBitmap bitmap) {
+
+        final int[] basePrimes = SegmentedSieve.basePrimes(maxFactorSize);
+        final int firstSievingPrime = Math.min(3, basePrimes.length);
+        final long[] nextMultiples = new long[basePrimes.length];
+        final int[] wheelPositions = new int[basePrimes.length];
+        for (int index = firstSievingPrime; index < basePrimes.length; index++) {
+            nextMultiples[index] = (long) basePrimes[index] * basePrimes[index];
+            wheelPositions[index] = RESIDUE_INDEX[basePrimes[index] % WHEEL];
+        }
+
+        final byte[] bytes = bitmap.bytes();
+        for (long low = 0; low < bytes.length; low += segmentSize) {
+            final long high = Math.min(low + segmentSize, bytes.length) * WHEEL;
+            for (int index = firstSievingPrime; index < basePrimes.length; index++) {
+                final int factor = basePrimes[index];
+                long multiple = nextMultiples[index];
+                int position = wheelPositions[index];
+                while (multiple < high) {
+                    bytes[(int) (multiple / WHEEL)] &= (byte) ~(1 << RESIDUE_INDEX[(int) (multiple % WHEEL)]);
+                    multiple += (long) factor * GAPS[position];
+                    position = (position + 1) & (RESIDUES.length - 1);
+                }
+                nextMultiples[index] = multiple;
+                wheelPositions[index] = position;
+            }
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.gds.service.prime;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongPredicate;
+
+import static org.springframework.util.Assert.state;
+
+/**
+ * Segmented sieve of Eratosthenes over an arbitrary window of long values, seeded with a table of base primes.
+ * Only odd values are stored, one bit each, and the window is processed a cache sized segment at a time so a
+ * caller that stops early pays only for the segments it has consumed.
+ * <p/>
+ * The base prime table must cover the square root of the end of the window; a table covering the square root of
+ * Long.MAX_VALUE can sieve any window of positive longs.
+ * <p/>
+ * High windows are bucket sieved by default, after Oliveira e Silva: primes smaller than a segment carry their
+ * next multiple from one segment to the next, while each larger prime, which hits a segment at most once, is held
+ * in the bucket of the next segment it hits and only touched there. Plain sieving instead visits every base prime
+ * in every segment, so it reads a streamed table, sieving it again, once per segment.
+ * <p/>
+ */
+public class WindowSieve {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 18;
+    private final BasePrimeTable basePrimes;
+    private final int segmentSize;
+    private final boolean bucketSieving;
+
+    public WindowSieve(final BasePrimeTable basePrimes) {
+        this(basePrimes, DEFAULT_SEGMENT_SIZE, true);
+    }
+
+    public WindowSieve(final BasePrimeTable basePrimes, final int segmentSize) {
+        this(basePrimes, segmentSize, true);
+    }
+
+    public WindowSieve(final BasePrimeTable basePrimes, final int segmentSize, final boolean bucketSieving) {
+        state(segmentSize > 0 && segmentSize % 64 == 0, "Segment size must be a positive multiple of 64.");
+        this.basePrimes = basePrimes;
+        this.segmentSize = segmentSize;
+        this.bucketSieving = bucketSieving;
+    }
+
+    /**
+     * Hands the primes in [from, to], both inclusive, to the action in ascending order, stopping as soon as the
+     * action returns false.
+     *
+     * @return true if the whole window was visited
+     */
+    public boolean forEachPrime(final long from, final long to, final LongPredicate action) {
+
+        if (from <= 2 && to >= 2 && !action.test(2))
+            return false;
+
+        final Segments segments = segments(from, to);
+        while (segments != null && segments.next())
+            if (!visitSegment(segments.words, segments.segmentLow, action))
+                return false;
+        return true;
+    }
+
+    /**
+     * The primes in [from, to], both inclusive, in ascending order. Segments are sieved only as the iterator
+     * reaches them.
+     */
+    public PrimitiveIterator.OfLong iterator(final long from, final long to) {
+        return new SegmentIterator(from <= 2 && to >= 2, segments(from, to));
+    }
+
+    /**
+     * Number of values covered by one segment.
+     */
+    public long segmentSpan() {
+        return 2L * segmentSize;
+    }
+
+    private Segments segments(final long from, final long to) {
+
+        final long first = Math.max(from, 3) | 1;
+        if (first > to)
+            return null;
+        return bucketSieving ? new BucketSieve(first, to) : new PlainSieve(first, to);
+    }
+
+    private static void resetSegment(final long[] words, final long low, final long bits) {
+
+        final int wordCount = (int) ((bits + 63) >>> 6);
+        Arrays.fill(words, 0, wordCount, -1L);
+        Arrays.fill(words, wordCount, words.length, 0L);
+        if ((bits & 63) != 0)
+            words[wordCount - 1] = -1L >>> (64 - (bits & 63));
+        if (low == 1)
+            words[0] &= ~1L;
+    }
+
+    private static boolean visitSegment(final long[] words, final long low, final LongPredicate action) {
+
+        for (int wordIndex = 0; wordIndex < words.length; wordIndex++) {
+            long word = words[wordIndex];
+            while (word != 0) {
+                final long bit = ((long) wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                if (!action.test(low + 2 * bit))
+                    return false;
+                word &= word - 1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The first odd multiple of the factor in the window that is at least its square, as a bit offset from the
+     * start of the window, or -1 if the window holds none.
+     */
+    private static long firstMultiple(final long factor, final long low, final long to) {
+
+        final long square = factor * factor;
+        long multiple;
+        if (square >= low) {
+            multiple = square;
+        } else {
+            final long offset = (factor - low % factor) % factor;
+            if (offset > to - low)
+                return -1;
+            multiple = low + offset;
+            if ((multiple & 1) == 0) {
+                if (factor > to - multiple)
+                    return -1;
+                multiple += factor;
+            }
+        }
+        return multiple > to ? -1 : (multiple - low) >>> 1;
+    }
+
+    private void sieveSegment(final long[] words, final long low, final long last, final long bits) {
+
+        for (final PrimitiveIterator.OfLong factors = basePrimes.iterator(); factors.hasNext(); ) {
+            final long factor = factors.nextLong();
+            if (factor == 2)
+                continue;
+            if (factor * factor > last)
+                break;
+            final long first = firstMultiple(factor, low, last);
+            if (first < 0)
+                continue;
+            for (long bit = first; bit < bits; bit += factor)
+                words[(int) (bit >>> 6)] &= ~(1L << bit);
+        }
+    }
+
+    /**
+     * Successive sieved segments of a window, each a bitmap of the odd values from its low end.
+     */
+    private abstract class Segments {
+
+        final long[] words = new long[segmentSize >>> 6];
+        long segmentLow;
+
+        abstract boolean next();
+    }
+
+    private final class PlainSieve extends Segments {
+
+        private final long to;
+        private long low;
+        private boolean exhausted;
+
+        private PlainSieve(final long low, final long to) {
+            this.low = low;
+            this.to = to;
+        }
+
+        @Override
+        boolean next() {
+
+            if (exhausted)
+                return false;
+            final long last = to - low >= 2L * segmentSize ? low + 2L * segmentSize - 1 : to;
+            state(LucyPrimeCounter.squareRoot(last) < basePrimes.coverage(),
+                    "Base primes do not extend far enough to sieve the window.");
+            final long bits = (last - low) / 2 + 1;
+            resetSegment(words, low, bits);
+            sieveSegment(words, low, last, bits);
+            segmentLow = low;
+            if (last == to)
+                exhausted = true;
+            else
+                low += 2L * segmentSize;
+            return true;
+        }
+    }
+
+    /**
+     * One pass of the bucket sieve over the odd values of [low, to]. Bit offsets are counted from the start of the
+     * window, and segment k holds bits [k * segmentSize, (k + 1) * segmentSize). Primes below the segment size
+     * keep their next offset in an array; each larger prime sits, as its value and the offset of its next multiple
+     * within the segment, in one of a ring of buckets long enough that no prime can skip the whole ring. A large
+     * prime whose square lies in the window may first hit well beyond the ring, so those, the last of the base
+     * primes, are only read from the table once the sieve reaches the segment holding their square. The table is
+     * read once, in order, so a streamed table is sieved no more than once per window.
+     */
+    private final class BucketSieve extends Segments {
+
+        private final long low;
+        private final long to;
+        private final long lastSegment;
+        private final long root;
+        private final PrimitiveIterator.OfLong factors;
+        private int[] mediumPrimes = new int[64];
+        private long[] mediumOffsets = new long[64];
+        private int mediumCount;
+        private int[][] buckets;
+        private int[] bucketSizes;
+        private long pendingFactor;
+        private long segment;
+
+        private BucketSieve(final long low, final long to) {
+
+            this.low = low;
+            this.to = to;
+            this.lastSegment = ((to - low) >>> 1) / segmentSize;
+            this.root = LucyPrimeCounter.squareRoot(to);
+            state(root < basePrimes.coverage(), "Base primes do not extend far enough to sieve the window.");
+
+            buckets = new int[(int) (root / segmentSize + 2)][];
+            bucketSizes = new int[buckets.length];
+            factors = basePrimes.iterator();
+            while (factors.hasNext()) {
+                final long factor = factors.nextLong();
+                if (factor > root)
+                    break;
+                if (factor >= segmentSize && factor * factor >= low) {
+                    pendingFactor = factor;
+                    break;
+                }
+                if (factor == 2)
+                    continue;
+                final long offset = firstMultiple(factor, low, to);
+                if (offset < 0)
+                    continue;
+                if (factor < segmentSize)
+                    addMedium(factor, offset);
+                else
+                    schedule(factor, offset / segmentSize, (int) (offset % segmentSize));
+            }
+        }
+
+        @Override
+        boolean next() {
+
+            if (segment > lastSegment)
+                return false;
+            segmentLow = low + 2 * segment * segmentSize;
+            final long bits = segment == lastSegment ? ((to - segmentLow) >>> 1) + 1 : segmentSize;
+            resetSegment(words, segmentLow, bits);
+            crossOffMedium(words, segment * segmentSize, bits);
+            schedulePending(segment);
+            crossOffBucket(words, segment);
+            segment++;
+            return true;
+        }
+
+        private void schedulePending(final long segment) {
+
+            while (pendingFactor != 0) {
+                final long offset = (pendingFactor * pendingFactor - low) >>> 1;
+                if (offset / segmentSize > segment)
+                    return;
+                schedule(pendingFactor, segment, (int) (offset % segmentSize));
+                pendingFactor = factors.hasNext() ? factors.nextLong() : 0;
+                if (pendingFactor > root)
+                    pendingFactor = 0;
+            }
+        }
+
+        private void crossOffMedium(final long[] words, final long segmentStart, final long bits) {
+
+            for (int medium = 0; medium < mediumCount; medium++) {
+                final int factor = mediumPrimes[medium];
+                long bit = mediumOffsets[medium] - segmentStart;
+                for (; bit < bits; bit += factor)
+                    words[(int) (bit >>> 6)] &= ~(1L << bit);
+                mediumOffsets[medium] = segmentStart + bit;
+            }
+        }
+
+        private void crossOffBucket(final long[] words, final long segment) {
+
+            final int slot = (int) (segment % buckets.length);
+            final int[] bucket = buckets[slot];
+            final int size = bucketSizes[slot];
+            bucketSizes[slot] = 0;
+            for (int entry = 0; entry < size; entry += 2) {
+                final long factor = bucket[entry] & 0xFFFFFFFFL;
+                final int offset = bucket[entry + 1];
+                words[offset >>> 6] &= ~(1L << offset);
+                final long next = offset + factor;
+                schedule(factor, segment + next / segmentSize, (int) (next % segmentSize));
+            }
+        }
+
+        private void addMedium(final long factor, final long offset) {
+
+            if (mediumCount == mediumPrimes.length) {
+                mediumPrimes = Arrays.copyOf(mediumPrimes, 2 * mediumCount);
+                mediumOffsets = Arrays.copyOf(mediumOffsets, 2 * mediumCount);
+            }
+            mediumPrimes[mediumCount] = (int) factor;
+            mediumOffsets[mediumCount++] = offset;
+        }
+
+        private void schedule(final long factor, final long segment, final int offset) {
+
+            if (segment > lastSegment)
+                return;
+            final int slot = (int) (segment % buckets.length);
+            int[] bucket = buckets[slot];
+            final int size = bucketSizes[slot];
+            if (bucket == null)
+                bucket = buckets[slot] = new int[16];
+            else if (size == bucket.length)
+                bucket = buckets[slot] = Arrays.copyOf(bucket, 2 * size);
+            bucket[size] = (int) factor;
+            bucket[size + 1] = offset;
+            bucketSizes[slot] = size + 2;
+        }
+    }
+
+    private static final class SegmentIterator implements PrimitiveIterator.OfLong {
+
+        private final Segments segments;
+        private boolean two;
+        private int wordIndex;
+        private long word;
+
+        private SegmentIterator(final boolean two, final Segments segments) {
+            this.two = two;
+            this.segments = segments;
+            this.wordIndex = segments == null ? 0 : segments.words.length;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (two)
+                return true;
+            while (word == 0) {
+                if (segments == null)
+                    return false;
+                if (++wordIndex >= segments.words.length) {
+                    if (!segments.next())
+                        return false;
+                    wordIndex = 0;
+                }
+                word = segments.words[wordIndex];
+            }
+            return true;
+        }
+
+        @Override
+        public long nextLong() {
+
+            if (!hasNext())
+                throw new NoSuchElementException();
+            if (two) {
+                two = false;
+                return 2;
+            }
+            final long bit = ((long) wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            return segments.segmentLow + 2 * bit;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.gds.service.prime;
+
+import java.util.Comparator;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Primitive spliterator over the primes in an on-demand window [from, to], both inclusive. The window splits in
+ * half on segment boundaries, down to a minimum number of segments so each part amortises setting up its sieve,
+ * and each part sieves only its own values. The number of primes in a window is not known until it is sieved, so
+ * the size reported is an estimate from the logarithmic integral and the spliterator is not SIZED.
+ * <p/>
+ */
+public class WindowSpliterator implements Spliterator.OfLong {
+
+    private static final int MIN_SPLIT_SEGMENTS = 64;
+    private final WindowSieve sieve;
+    private long from;
+    private final long to;
+    private PrimitiveIterator.OfLong primes;
+    private boolean exhausted;
+
+    public WindowSpliterator(final WindowSieve sieve, final long from, final long to) {
+        this.sieve = sieve;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+
+        final long span = sieve.segmentSpan();
+        if (primes != null || exhausted || to - from < 2 * MIN_SPLIT_SEGMENTS * span)
+            return null;
+        final long middle = from + (to - from) / 2 / span * span;
+        final Spliterator.OfLong prefix = new WindowSpliterator(sieve, from, middle - 1);
+        from = middle;
+        return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(final LongConsumer action) {
+
+        if (exhausted)
+            return false;
+        if (primes == null)
+            primes = sieve.iterator(from, to);
+        if (!primes.hasNext()) {
+            exhausted = true;
+            return false;
+        }
+        action.accept(primes.nextLong());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(final LongConsumer action) {
+
+        if (exhausted)
+            return;
+        if (primes != null)
+            primes.forEachRemaining(action);
+        else
+            sieve.forEachPrime(from, to, prime -> {
+                action.accept(prime);
+                return true;
+            });
+        exhausted = true;
+    }
+
+    @Override
+    public long estimateSize() {
+
+        if (exhausted)
+            return 0;
+        final double estimate = LogarithmicIntegral.li(to + 1.0) - LogarithmicIntegral.li(Math.max(from, 2));
+        return Math.max(1, Math.round(estimate));
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL
+                | Spliterator.IMMUTABLE;
+    }
+
+    @Override
+    public Comparator<? super Long> getComparator() {
+        return null;
+    }
+}
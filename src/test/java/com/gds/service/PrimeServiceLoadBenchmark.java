@@ -0,0 +1,147 @@
+package com.gds.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.springframework.util.Assert.state;
+
+/**
+ * Load comparison of platform and virtual thread request execution, run through the Maven <code>benchmark</code>
+ * profile. The service is started in each mode in turn, on a free port, and driven by a fixed number of
+ * concurrent clients (400 by default) for a fixed time (20 seconds by default, after a 5 second warm up). The
+ * workload is mixed: most requests are cheap lookups of the primes in a random range 1,000 wide, while one in 200
+ * streams the whole cache below 2^24. Throughput and the 99th percentile latency are reported for each kind.
+ * <p/>
+ * The clients run on virtual threads in the same JVM, so they compete with the service for cores; the figures
+ * compare the two modes with each other rather than measure the service on its own.
+ * <p/>
+ */
+public class PrimeServiceLoadBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PrimeServiceLoadBenchmark.class);
+    private static final int DEFAULT_CLIENTS = 400;
+    private static final int DEFAULT_SECONDS = 20;
+    private static final int WARM_UP_SECONDS = 5;
+    private static final int HUGE_EVERY = 200;
+    private static final int CHEAP = 0;
+    private static final int HUGE = 1;
+    private static final int CHEAP_RANGE = 1000;
+    private static final int CACHE_TOP = (1 << 24) - 1;
+    private static final DecimalFormat FORMATTER = new DecimalFormat("###,###,###,###");
+
+    public static void main(final String[] args) throws Exception {
+
+        final int clients = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLIENTS;
+        final int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        for (final boolean virtualThreads : new boolean[]{false, true})
+            measure(virtualThreads, clients, seconds);
+    }
+
+    private static void measure(final boolean virtualThreads, final int clients, final int seconds)
+            throws Exception {
+
+        try (ConfigurableApplicationContext context = SpringApplication.run(PrimeServiceApplication.class,
+                "--server.port=0", "--prime.virtual-threads=" + virtualThreads)) {
+            final int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            drive(client, port, clients, WARM_UP_SECONDS);
+            final Latencies[][] latencies = drive(client, port, clients, seconds);
+
+            final Latencies cheap = Latencies.merge(latencies, CHEAP);
+            final Latencies huge = Latencies.merge(latencies, HUGE);
+            LOG.info("threads={} clients={} cheap(req/s)={} cheap p99(us)={} huge(req/s)={} huge p99(ms)={}",
+                    virtualThreads ? "virtual" : "platform", clients,
+                    FORMATTER.format(cheap.count / seconds), FORMATTER.format(cheap.percentile(99) / 1_000),
+                    String.format("%.2f", (double) huge.count / seconds),
+                    FORMATTER.format(huge.percentile(99) / 1_000_000));
+        }
+    }
+
+    /**
+     * Runs the clients against the service for the given time, returning the latencies each one saw, cheap then
+     * huge.
+     */
+    private static Latencies[][] drive(final HttpClient client, final int port, final int clients, final int seconds)
+            throws Exception {
+
+        final long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        final List<Future<Latencies[]>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int index = 0; index < clients; index++) {
+                final SplittableRandom random = new SplittableRandom(index);
+                results.add(executor.submit(() -> run(client, port, random, deadline)));
+            }
+        }
+        final Latencies[][] latencies = new Latencies[clients][];
+        for (int index = 0; index < clients; index++)
+            latencies[index] = results.get(index).get();
+        return latencies;
+    }
+
+    private static Latencies[] run(final HttpClient client, final int port, final SplittableRandom random,
+                                 final long deadline) throws Exception {
+
+        final Latencies[] latencies = {new Latencies(), new Latencies()};
+        while (System.nanoTime() < deadline) {
+            final boolean huge = random.nextInt(HUGE_EVERY) == 0;
+            final int from = random.nextInt(2, CACHE_TOP - CHEAP_RANGE);
+            final String query = huge ? "max=" + CACHE_TOP : "from=" + from + "&to=" + (from + CHEAP_RANGE);
+            final HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/primes?"
+                    + query)).build();
+
+            final long started = System.nanoTime();
+            final HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            state(response.statusCode() == 200, "Request " + query + " answered " + response.statusCode());
+            latencies[huge ? HUGE : CHEAP].add(System.nanoTime() - started);
+        }
+        return latencies;
+    }
+
+    /**
+     * Request latencies in nanoseconds, of one kind of request.
+     */
+    private static final class Latencies {
+
+        private long[] nanos = new long[64];
+        private int count;
+
+        void add(final long elapsedNanos) {
+            if (count == nanos.length)
+                nanos = Arrays.copyOf(nanos, 2 * count);
+            nanos[count++] = elapsedNanos;
+        }
+
+        /**
+         * The latencies of every client for one kind of request, sorted.
+         */
+        static Latencies merge(final Latencies[][] clients, final int kind) {
+
+            final Latencies merged = new Latencies();
+            for (final Latencies[] latencies : clients)
+                for (int index = 0; index < latencies[kind].count; index++)
+                    merged.add(latencies[kind].nanos[index]);
+            Arrays.sort(merged.nanos, 0, merged.count);
+            return merged;
+        }
+
+        long percentile(final int percent) {
+            return count == 0 ? 0 : nanos[(int) Math.min(count - 1, (long) count * percent / 100)];
+        }
+    }
+}
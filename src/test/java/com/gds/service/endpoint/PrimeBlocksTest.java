@@ -0,0 +1,147 @@
+package com.gds.service.endpoint;
+
+import com.gds.service.prime.OptimisedReadTimePrimeGenerator;
+import com.gds.service.prime.SieveGrowth;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static com.gds.service.endpoint.PrimeBlocks.BLOCK_PRIMES;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PrimeBlocksTest {
+
+    private static final OptimisedReadTimePrimeGenerator GENERATOR = new OptimisedReadTimePrimeGenerator(1 << 22);
+
+    private final PrimeBlocks blocks = new PrimeBlocks(GENERATOR, true);
+
+    @Test
+    void encodesHeadBlocksAndTailAsTheDirectWriterDoes() throws IOException {
+        final List<int[]> ranges = new ArrayList<>();
+        ranges.add(new int[]{2, prime(2 * BLOCK_PRIMES - 1)});
+        ranges.add(new int[]{2, prime(2 * BLOCK_PRIMES - 1) + 1});
+        for (final int block : new int[]{1, 2, 3, 10}) {
+            final int first = prime(block * BLOCK_PRIMES);
+            final int last = prime((block + 2) * BLOCK_PRIMES - 1);
+            ranges.add(new int[]{first, last});
+            ranges.add(new int[]{prime(block * BLOCK_PRIMES - 1) + 1, prime((block + 2) * BLOCK_PRIMES) - 1});
+            ranges.add(new int[]{first + 1, last + 1});
+        }
+        for (final int[] range : ranges)
+            for (final PrimeFormat format : PrimeFormat.values()) {
+                final Iterable<ByteBuffer> response = blocks.response(format, range[0], range[1]);
+                assertNotNull(response, format + " " + range[0] + ".." + range[1]);
+                assertArrayEquals(direct(format, range[0], range[1]), bytes(response),
+                        format + " " + range[0] + ".." + range[1]);
+            }
+    }
+
+    @Test
+    void matchesTheDirectWriterOverRandomRanges() throws IOException {
+        final SplittableRandom random = new SplittableRandom(5);
+        final int top = GENERATOR.sievedUpTo() - 1;
+        final List<int[]> ranges = new ArrayList<>();
+        ranges.add(new int[]{2, top});
+        ranges.add(new int[]{2, 180_000});
+        ranges.add(new int[]{180_000, 540_000});
+        while (ranges.size() < 56) {
+            final int start = random.nextInt(2, top);
+            ranges.add(new int[]{start, random.nextInt(start, top + 1)});
+        }
+        for (final int[] range : ranges)
+            for (final PrimeFormat format : PrimeFormat.values()) {
+                final Iterable<ByteBuffer> response = blocks.response(format, range[0], range[1]);
+                if (response != null)
+                    assertArrayEquals(direct(format, range[0], range[1]), bytes(response),
+                            format + " " + range[0] + ".." + range[1]);
+            }
+    }
+
+    @Test
+    void encodesTheCachedPrimesInEachBlock() throws IOException {
+        final int start = prime(BLOCK_PRIMES);
+        final int end = prime(3 * BLOCK_PRIMES - 1);
+        final ByteBuffer encoded = ByteBuffer.wrap(bytes(blocks.response(PrimeFormat.INT32, start, end)))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(2 * BLOCK_PRIMES, encoded.remaining() / 4);
+        for (int index = BLOCK_PRIMES; index < 3 * BLOCK_PRIMES; index++)
+            assertEquals(prime(index), encoded.getInt());
+    }
+
+    @Test
+    void sendsTheSameResponseAgain() throws IOException {
+        final int start = prime(BLOCK_PRIMES) + 1;
+        final int end = prime(4 * BLOCK_PRIMES);
+        for (final PrimeFormat format : PrimeFormat.values()) {
+            final Iterable<ByteBuffer> response = blocks.response(format, start, end);
+            final byte[] first = bytes(response);
+            assertArrayEquals(direct(format, start, end), first, format.toString());
+            assertArrayEquals(first, bytes(response), format.toString());
+        }
+    }
+
+    @Test
+    void writesHeapBlocksLikeDirectBlocks() throws IOException {
+        final PrimeBlocks heapBlocks = new PrimeBlocks(GENERATOR, false);
+        final int start = prime(BLOCK_PRIMES);
+        final int end = prime(5 * BLOCK_PRIMES) + 1;
+        for (final PrimeFormat format : PrimeFormat.values())
+            for (int pass = 0; pass < 2; pass++)
+                assertArrayEquals(bytes(blocks.response(format, start, end)),
+                        bytes(heapBlocks.response(format, start, end)), format.toString());
+    }
+
+    @Test
+    void keepsOnlyBlocksBelowTheInitialSieveSize() throws IOException {
+        final OptimisedReadTimePrimeGenerator grown = OptimisedReadTimePrimeGenerator.builder()
+                .sieveSize(1 << 20)
+                .growth(SieveGrowth.doubling(1 << 21))
+                .build();
+        grown.primesForRange(2, (1 << 21) - 1);
+        final PrimeBlocks grownBlocks = new PrimeBlocks(grown, true);
+        final int end = grown.sievedUpTo() - 1;
+        final int belowSieveSize = (int) grown.countPrimesUpTo((1 << 20) - 1) / BLOCK_PRIMES;
+        for (final PrimeFormat format : PrimeFormat.values()) {
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            format.writer(grown.primeStreamForRange(2, end).iterator()).writeTo(expected);
+            assertArrayEquals(expected.toByteArray(), bytes(grownBlocks.response(format, 2, end)), format.toString());
+            assertEquals(belowSieveSize, grownBlocks.cachedBlockCount(format), format.toString());
+        }
+    }
+
+    @Test
+    void leavesRangesWithoutWholeBlocksToTheDirectWriter() {
+        assertNull(blocks.response(PrimeFormat.JSON, 2, prime(BLOCK_PRIMES - 2)));
+        assertNull(blocks.response(PrimeFormat.JSON, prime(BLOCK_PRIMES) + 1, prime(3 * BLOCK_PRIMES - 2)));
+        assertNull(blocks.response(PrimeFormat.JSON, 20, 10));
+        assertNull(blocks.response(PrimeFormat.JSON, 2, GENERATOR.sievedUpTo()));
+    }
+
+    /**
+     * The prime at the index, counting from 0.
+     */
+    private static int prime(final int index) {
+        return (int) GENERATOR.nthPrime(index + 1L);
+    }
+
+    private static byte[] direct(final PrimeFormat format, final int start, final int end) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        format.writer(GENERATOR.primeStreamForRange(start, end).iterator()).writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(final Iterable<ByteBuffer> response) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrimeBlocks.writeTo(response.iterator(), out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,23 @@
+package com.gds.service.endpoint;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrimeFormatTest {
+
+    @Test
+    void negotiatesTheFormatTheAcceptHeaderPrefers() {
+        assertEquals(PrimeFormat.JSON, PrimeFormat.negotiate(null));
+        assertEquals(PrimeFormat.JSON, PrimeFormat.negotiate("*/*"));
+        assertEquals(PrimeFormat.JSON, PrimeFormat.negotiate("application/*"));
+        assertEquals(PrimeFormat.JSON, PrimeFormat.negotiate("application/json"));
+        assertEquals(PrimeFormat.INT32, PrimeFormat.negotiate("application/octet-stream"));
+        assertEquals(PrimeFormat.DELTA_VARINT, PrimeFormat.negotiate(PrimeFormat.DELTA_VARINT_VALUE));
+        assertEquals(PrimeFormat.INT32, PrimeFormat.negotiate("application/json;q=0.5, application/octet-stream"));
+        assertEquals(PrimeFormat.DELTA_VARINT,
+                PrimeFormat.negotiate("*/*;q=0.1, " + PrimeFormat.DELTA_VARINT_VALUE + ", application/json;q=0.9"));
+        assertEquals(PrimeFormat.INT32, PrimeFormat.negotiate("text/plain, application/octet-stream;q=0.2"));
+        assertEquals(PrimeFormat.JSON, PrimeFormat.negotiate("text/plain"));
+    }
+}
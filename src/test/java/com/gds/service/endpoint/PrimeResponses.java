@@ -0,0 +1,76 @@
+package com.gds.service.endpoint;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Decodes the body of a prime response back to the primes it holds.
+ * <p/>
+ */
+final class PrimeResponses {
+
+    private PrimeResponses() {
+    }
+
+    /**
+     * The primes in a body of the format.
+     */
+    static int[] decode(final PrimeFormat format, final byte[] body) {
+        switch (format) {
+            case JSON:
+                return json(body);
+            case INT32:
+                return int32(body);
+            default:
+                return deltaVarint(body);
+        }
+    }
+
+    /**
+     * The primes in a JSON array of numbers.
+     */
+    static int[] json(final byte[] body) {
+        final String text = new String(body, StandardCharsets.US_ASCII);
+        if (!text.startsWith("[") || !text.endsWith("]"))
+            throw new AssertionError("Not a JSON array: " + text);
+        final String values = text.substring(1, text.length() - 1);
+        return values.isEmpty() ? new int[0] : Arrays.stream(values.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * The primes in a sequence of little-endian 32 bit integers.
+     */
+    static int[] int32(final byte[] body) {
+        if (body.length % Integer.BYTES != 0)
+            throw new AssertionError("Not a whole number of integers: " + body.length + " bytes");
+        final int[] primes = new int[body.length / Integer.BYTES];
+        ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(primes);
+        return primes;
+    }
+
+    /**
+     * The primes in a sequence of varint encoded gaps, the first taken from zero.
+     */
+    static int[] deltaVarint(final byte[] body) {
+        int[] primes = new int[16];
+        int count = 0;
+        int prime = 0;
+        for (int position = 0; position < body.length; ) {
+            int delta = 0;
+            int shift = 0;
+            byte next;
+            do {
+                next = body[position++];
+                delta |= (next & 0x7F) << shift;
+                shift += 7;
+            } while ((next & 0x80) != 0);
+            prime += delta;
+            if (count == primes.length)
+                primes = Arrays.copyOf(primes, 2 * count);
+            primes[count++] = prime;
+        }
+        return Arrays.copyOf(primes, count);
+    }
+}
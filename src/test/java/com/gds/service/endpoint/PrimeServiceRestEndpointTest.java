@@ -0,0 +1,77 @@
+package com.gds.service.endpoint;
+
+import com.gds.service.prime.OptimisedReadTimePrimeGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PrimeServiceRestEndpointTest {
+
+    private static final int SIEVE_SIZE = 1 << 20;
+    private static final OptimisedReadTimePrimeGenerator GENERATOR = new OptimisedReadTimePrimeGenerator(SIEVE_SIZE);
+
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new PrimeServiceRestEndpoint(GENERATOR)).build();
+
+    @Test
+    void streamsTheRequestedPrimesAsJson() throws Exception {
+        assertArrayEquals(GENERATOR.primesForRange(2, 100), PrimeResponses.json(body("max=100")));
+        assertArrayEquals(new int[0], PrimeResponses.json(body("from=1024&to=1030")));
+        assertArrayEquals(GENERATOR.primesForRange(500_000, 900_000),
+                PrimeResponses.json(body("from=500000&to=900000")));
+        assertArrayEquals(GENERATOR.primesForRange(2, SIEVE_SIZE - 1),
+                PrimeResponses.json(body("max=" + (SIEVE_SIZE - 1))));
+    }
+
+    @Test
+    void encodesEachAcceptedFormatLikeTheGenerator() throws Exception {
+        final int[][] ranges = {{2, 100}, {500_000, 900_000}, {2, SIEVE_SIZE - 1}, {1_024, 1_030}};
+        for (final int[] range : ranges)
+            for (final PrimeFormat format : PrimeFormat.values())
+                assertArrayEquals(GENERATOR.primesForRange(range[0], range[1]),
+                        PrimeResponses.decode(format, body("from=" + range[0] + "&to=" + range[1], format)),
+                        format + " " + range[0] + ".." + range[1]);
+    }
+
+    @Test
+    void rejectsAnUnsupportedAcceptHeaderWith406() throws Exception {
+        mockMvc.perform(get("/primes?max=100").accept(MediaType.TEXT_PLAIN))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void rejectsInvalidRequestsWith400() throws Exception {
+        for (final String query : new String[]{"from=20&to=10", "from=1&to=10", "from=2&to=" + SIEVE_SIZE, "max=1",
+                "max=10&from=2&to=5", "from=2"}) {
+            final MvcResult result = mockMvc.perform(get("/primes?" + query))
+                    .andExpect(status().isBadRequest())
+                    .andReturn();
+            assertEquals(MediaType.TEXT_PLAIN_VALUE, result.getResponse().getContentType(), query);
+            assertFalse(result.getResponse().getContentAsString().isEmpty(), query);
+        }
+    }
+
+    private byte[] body(final String query) throws Exception {
+        return body(query, PrimeFormat.JSON);
+    }
+
+    private byte[] body(final String query, final PrimeFormat format) throws Exception {
+        final MvcResult started = mockMvc.perform(get("/primes?" + query).accept(format.mediaType()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        final MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(format.mediaType().toString(), result.getResponse().getContentType(), query);
+        return result.getResponse().getContentAsByteArray();
+    }
+}
@@ -0,0 +1,95 @@
+package com.gds.service.endpoint;
+
+import com.gds.service.prime.OptimisedReadTimePrimeGenerator;
+import com.gds.service.prime.SieveGrowth;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ReactivePrimeServiceEndpointTest {
+
+    private static final int SIEVE_SIZE = 1 << 20;
+    private static final OptimisedReadTimePrimeGenerator GENERATOR = OptimisedReadTimePrimeGenerator.builder()
+            .sieveSize(SIEVE_SIZE)
+            .growth(SieveGrowth.doubling(1 << 21))
+            .build();
+
+    private final WebTestClient client = WebTestClient.bindToController(new ReactivePrimeServiceEndpoint(GENERATOR))
+            .configureClient()
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 << 20))
+            .build();
+
+    @Test
+    void streamsTheRequestedPrimesAsJson() {
+        assertArrayEquals(GENERATOR.primesForRange(2, 100), PrimeResponses.json(body("max=100")));
+        assertArrayEquals(new int[0], PrimeResponses.json(body("from=1024&to=1030")));
+        assertArrayEquals(GENERATOR.primesForRange(500_000, 900_000),
+                PrimeResponses.json(body("from=500000&to=900000")));
+        assertArrayEquals(GENERATOR.primesForRange(2, SIEVE_SIZE - 1),
+                PrimeResponses.json(body("max=" + (SIEVE_SIZE - 1))));
+    }
+
+    @Test
+    void growsTheCacheForRangesBeyondTheSieveSize() {
+        final int[] beyond = PrimeResponses.json(body("from=1000000&to=1500000"));
+        assertEquals(1 << 21, GENERATOR.sievedUpTo());
+        assertArrayEquals(GENERATOR.primesForRange(1_000_000, 1_500_000), beyond);
+    }
+
+    @Test
+    void encodesEachAcceptedFormatLikeTheGenerator() {
+        final int[][] ranges = {{2, 100}, {500_000, 900_000}, {2, SIEVE_SIZE - 1}, {1_024, 1_030}};
+        for (final int[] range : ranges)
+            for (final PrimeFormat format : PrimeFormat.values())
+                assertArrayEquals(GENERATOR.primesForRange(range[0], range[1]),
+                        PrimeResponses.decode(format, body("from=" + range[0] + "&to=" + range[1], format)),
+                        format + " " + range[0] + ".." + range[1]);
+    }
+
+    @Test
+    void rejectsAnUnsupportedAcceptHeaderWith406() {
+        client.get().uri("/primes?max=100")
+                .accept(MediaType.TEXT_PLAIN)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_ACCEPTABLE);
+    }
+
+    @Test
+    void rejectsInvalidRequestsWith400() {
+        for (final String query : new String[]{"from=20&to=10", "from=1&to=10", "from=2&to=" + (1 << 21), "max=1",
+                "max=10&from=2&to=5", "from=2"}) {
+            final String reason = client.get().uri("/primes?" + query)
+                    .exchange()
+                    .expectStatus().isBadRequest()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_PLAIN)
+                    .expectBody(String.class)
+                    .returnResult()
+                    .getResponseBody();
+            assertFalse(reason == null || reason.isEmpty(), query);
+        }
+    }
+
+    private byte[] body(final String query) {
+        return body(query, PrimeFormat.JSON);
+    }
+
+    /**
+     * The response body, empty rather than null when no bytes were sent.
+     */
+    private byte[] body(final String query, final PrimeFormat format) {
+        final byte[] body = client.get().uri("/primes?" + query)
+                .accept(format.mediaType())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(format.mediaType())
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        return body == null ? new byte[0] : body;
+    }
+}
@@ -0,0 +1,40 @@
+package com.gds.service.prime;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LucyPrimeCounterTest {
+
+    static final long[] PI_POWERS_OF_TEN = {0, 4, 25, 168, 1_229, 9_592, 78_498, 664_579, 5_761_455, 50_847_534,
+            455_052_511, 4_118_054_813L, 37_607_912_018L, 346_065_536_839L};
+
+    private final LucyPrimeCounter counter = new LucyPrimeCounter();
+
+    @Test
+    void countsPowersOfTen() {
+        long power = 1;
+        for (int exponent = 0; exponent <= 10; exponent++, power *= 10)
+            assertEquals(PI_POWERS_OF_TEN[exponent], counter.countPrimesUpTo(power), "pi(10^" + exponent + ")");
+    }
+
+    @Test
+    void agreesWithSieveForSmallValues() {
+        final boolean[] prime = ReferenceSieve.primality(20_000);
+        long count = 0;
+        for (int value = 0; value < prime.length; value++) {
+            count += prime[value] ? 1 : 0;
+            assertEquals(count, counter.countPrimesUpTo(value), "pi(" + value + ")");
+        }
+    }
+
+    @Test
+    void takesExactSquareRoots() {
+        for (final long value : new long[]{0, 1, 3, 4, 99, 100, 101, 999_999_999_999L, 1_000_000_000_000L,
+                9_007_199_254_740_993L, Long.MAX_VALUE})
+            assertEquals(BigInteger.valueOf(value).sqrt().longValueExact(), LucyPrimeCounter.squareRoot(value),
+                    "value " + value);
+    }
+}
@@ -0,0 +1,39 @@
+package com.gds.service.prime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static com.gds.service.prime.LucyPrimeCounterTest.PI_POWERS_OF_TEN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MeisselLehmerPrimeCounterTest {
+
+    private final MeisselLehmerPrimeCounter counter = new MeisselLehmerPrimeCounter(
+            new ArrayPrimeIndex(ReferenceSieve.primes(1 << 16)), 2);
+
+    @Test
+    void countsPowersOfTen() {
+        long power = 1;
+        for (int exponent = 0; exponent <= 12; exponent++, power *= 10)
+            assertEquals(PI_POWERS_OF_TEN[exponent], counter.countPrimesUpTo(power), "pi(10^" + exponent + ")");
+    }
+
+    @Test
+    void agreesWithLucyAtRandomValues() {
+        final LucyPrimeCounter lucy = new LucyPrimeCounter();
+        final SplittableRandom random = new SplittableRandom(97);
+        for (int sample = 0; sample < 40; sample++) {
+            final long value = random.nextLong(1L << (10 + sample % 24));
+            assertEquals(lucy.countPrimesUpTo(value), counter.countPrimesUpTo(value), "pi(" + value + ")");
+        }
+    }
+
+    @Test
+    void countsAroundPrimeSquares() {
+        final LucyPrimeCounter lucy = new LucyPrimeCounter();
+        for (final long prime : new long[]{2, 3, 13, 17, 541, 547, 65_521, 65_537})
+            for (long value = prime * prime - 1; value <= prime * prime + 1; value++)
+                assertEquals(lucy.countPrimesUpTo(value), counter.countPrimesUpTo(value), "pi(" + value + ")");
+    }
+}
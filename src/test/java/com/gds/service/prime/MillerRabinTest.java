@@ -0,0 +1,51 @@
+package com.gds.service.prime;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MillerRabinTest {
+
+    /**
+     * The least strong pseudoprimes to the first 1 to 9 prime bases, and Carmichael numbers, all composite.
+     */
+    private static final long[] STRONG_PSEUDOPRIMES = {2_047L, 1_373_653L, 25_326_001L, 3_215_031_751L,
+            2_152_302_898_747L, 3_474_749_660_383L, 341_550_071_728_321L, 3_825_123_056_546_413_051L, 561L, 41_041L,
+            825_265L, 321_197_185L};
+
+    @Test
+    void agreesWithSieveBelowOneMillion() {
+        final boolean[] prime = ReferenceSieve.primality(1_000_000);
+        assertFalse(MillerRabin.isPrime(-7));
+        for (int value = 0; value < prime.length; value++)
+            assertEquals(prime[value], MillerRabin.isPrime(value), "value " + value);
+    }
+
+    @Test
+    void agreesWithBigIntegerOnRandomValues() {
+        final SplittableRandom random = new SplittableRandom(97);
+        for (int sample = 0; sample < 20_000; sample++) {
+            final long value = random.nextLong(Long.MAX_VALUE) | 1;
+            assertEquals(BigInteger.valueOf(value).isProbablePrime(64), MillerRabin.isPrime(value), "value " + value);
+        }
+    }
+
+    @Test
+    void rejectsStrongPseudoprimes() {
+        for (final long value : STRONG_PSEUDOPRIMES)
+            assertFalse(MillerRabin.isPrime(value), "value " + value);
+    }
+
+    @Test
+    void acceptsPrimesNearTheTopOfTheRange() {
+        assertTrue(MillerRabin.isPrime(9_223_372_036_854_775_783L));
+        assertTrue(MillerRabin.isPrime(1_000_000_000_000_000_003L));
+        assertFalse(MillerRabin.isPrime(Long.MAX_VALUE));
+        assertFalse(MillerRabin.isPrime(4_611_686_014_132_420_609L));
+    }
+}
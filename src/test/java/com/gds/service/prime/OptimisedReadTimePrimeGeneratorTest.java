@@ -0,0 +1,174 @@
+package com.gds.service.prime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static com.gds.service.prime.LucyPrimeCounterTest.PI_POWERS_OF_TEN;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptimisedReadTimePrimeGeneratorTest {
+
+    private static final int SIEVE_SIZE = 1 << 20;
+    private static final int[] REFERENCE = ReferenceSieve.primes(1 << 22);
+
+    private final OptimisedReadTimePrimeGenerator generator = new OptimisedReadTimePrimeGenerator(SIEVE_SIZE);
+
+    @Test
+    void everyEngineAndBackingBuildsTheSameCache() {
+        final int sieveSize = 1_000_003;
+        final int[] expected = Arrays.copyOf(REFERENCE, Arrays.binarySearch(REFERENCE, 1_000_003));
+        for (final SieveEngine engine : SieveEngine.values())
+            for (final CacheBacking backing : CacheBacking.values()) {
+                if (engine == SieveEngine.WHEEL && backing == CacheBacking.RANK_SELECT)
+                    continue;
+                final OptimisedReadTimePrimeGenerator built = OptimisedReadTimePrimeGenerator.builder()
+                        .sieveSize(sieveSize)
+                        .engine(engine)
+                        .parallelism(2)
+                        .backing(backing)
+                        .build();
+                assertArrayEquals(expected, built.cachedPrimes(), engine + " with " + backing);
+            }
+    }
+
+    @Test
+    void locatesTheNthPrimeAtEvery97thIndex() {
+        for (int n = 1; n <= REFERENCE.length; n += 97)
+            assertEquals(REFERENCE[n - 1], generator.nthPrime(n), "nthPrime(" + n + ")");
+    }
+
+    @Test
+    void countsPowersOfTenWithinAndBeyondTheSieve() {
+        long power = 1;
+        for (int exponent = 0; exponent <= 11; exponent++, power *= 10)
+            assertEquals(PI_POWERS_OF_TEN[exponent], generator.countPrimesUpTo(power), "pi(10^" + exponent + ")");
+    }
+
+    @Test
+    void harvestsRangesWithinTheSieve() {
+        assertArrayEquals(new int[]{2, 3, 5, 7}, generator.primesUpToValue(10));
+        assertArrayEquals(new int[]{1_009, 1_013}, generator.primesForRange(1_000, 1_013));
+        assertArrayEquals(new int[0], generator.primesForRange(1_024, 1_030));
+        assertEquals(Arrays.asList(2, 3), generator.harvestPrimesForRange(2, 3));
+        assertThrows(IllegalArgumentException.class, () -> generator.primesForRange(20, 10));
+        assertThrows(IllegalArgumentException.class, () -> generator.primesForRange(2, SIEVE_SIZE));
+    }
+
+    @Test
+    void iteratesAcrossTheEndOfTheCache() {
+        final int from = Arrays.binarySearch(REFERENCE, 1_048_573);
+        final long[] expected = Arrays.stream(REFERENCE, from, REFERENCE.length).asLongStream().toArray();
+        assertArrayEquals(expected, generator.primesFrom(1_048_573).limit(expected.length).toArray());
+    }
+
+    @Test
+    void sievesWindowsBeyondTheSieveLikeMillerRabin() {
+        for (final long start : new long[]{SIEVE_SIZE - 1_000, 1_000_000_000_000L, 1L << 50}) {
+            final long end = start + 5_000;
+            assertArrayEquals(LongStream.rangeClosed(start, end).filter(MillerRabin::isPrime).toArray(),
+                    generator.primesForWindow(start, end), "window from " + start);
+        }
+    }
+
+    @Test
+    void answersBatchesLikeSingleValues() {
+        final long[] values = {-1, 0, 1, 2, 4, 1_048_573, SIEVE_SIZE, 1_000_000_000_039L, 3_825_123_056_546_413_051L};
+        final boolean[] results = generator.isPrimeBatch(values);
+        for (int index = 0; index < values.length; index++)
+            assertEquals(generator.isPrime(values[index]), results[index], "value " + values[index]);
+    }
+
+    @Test
+    void raisesTheWatermarkInStagesDuringAsyncInitialisation() throws InterruptedException {
+        final OptimisedReadTimePrimeGenerator async = OptimisedReadTimePrimeGenerator.builder()
+                .initialisation(Initialisation.ASYNC, 0)
+                .build();
+        final int firstStage = async.sievedUpTo();
+        assertTrue(firstStage >= 1 << 20, "first stage " + firstStage);
+        assertFalse(async.awaitWatermark((1 << 24) - 1, 0, TimeUnit.MILLISECONDS));
+
+        assertTrue(async.awaitWatermark((1 << 22) - 1, 1, TimeUnit.MINUTES));
+        assertTrue(async.sievedUpTo() >= 1 << 22);
+        assertTrue(async.awaitWatermark((1 << 24) - 1, 1, TimeUnit.MINUTES));
+        assertTrue(async.isInitialised());
+        assertEquals(1 << 24, async.sievedUpTo());
+        assertFalse(async.awaitWatermark(1 << 24, 1, TimeUnit.MINUTES));
+        assertArrayEquals(REFERENCE, Arrays.copyOf(async.cachedPrimes(), REFERENCE.length));
+    }
+
+    @Test
+    void answersAboveTheWatermarkLikeTheReferenceWhileInitialising() {
+        final int start = 4_000_000;
+        final int end = (1 << 22) - 1;
+        for (final long timeout : new long[]{0, 1}) {
+            final OptimisedReadTimePrimeGenerator async = OptimisedReadTimePrimeGenerator.builder()
+                    .initialisation(Initialisation.ASYNC, timeout)
+                    .build();
+            assertArrayEquals(between(start, end), async.primesForRange(start, end), "timeout " + timeout);
+            assertArrayEquals(Arrays.stream(between(start, end)).asLongStream().toArray(),
+                    async.primesForWindow(start, end), "timeout " + timeout);
+            assertEquals(REFERENCE.length, async.countPrimesUpTo(end), "timeout " + timeout);
+            assertEquals(REFERENCE[289_999], async.nthPrime(290_000), "timeout " + timeout);
+        }
+    }
+
+    @Test
+    void growsByEachPolicyUnderEveryBacking() {
+        final SieveEngine[] engines = {SieveEngine.SEGMENTED, SieveEngine.SEGMENTED, SieveEngine.WHEEL};
+        final CacheBacking[] backings = {CacheBacking.ARRAY, CacheBacking.RANK_SELECT, CacheBacking.ARRAY};
+        final SieveGrowth[] policies = {SieveGrowth.doubling(1 << 22), SieveGrowth.fixedChunks(300_000, 1 << 22)};
+        final int[] grownTo = {1 << 21, SIEVE_SIZE + 3 * 300_000};
+        for (int policy = 0; policy < policies.length; policy++)
+            for (int configuration = 0; configuration < engines.length; configuration++) {
+                final String description = engines[configuration] + " with " + backings[configuration] + ", policy "
+                        + policy;
+                final OptimisedReadTimePrimeGenerator grown = OptimisedReadTimePrimeGenerator.builder()
+                        .sieveSize(SIEVE_SIZE)
+                        .engine(engines[configuration])
+                        .backing(backings[configuration])
+                        .growth(policies[policy])
+                        .build();
+                assertArrayEquals(between(1_600_000, 1_700_000), grown.primesForRange(1_600_000, 1_700_000),
+                        description);
+                assertEquals(grownTo[policy], grown.sievedUpTo(), description);
+                assertEquals(SIEVE_SIZE, grown.sieveSize(), description);
+                assertArrayEquals(between(2, grownTo[policy] - 1), grown.cachedPrimes(), description);
+
+                assertEquals(REFERENCE.length, grown.countPrimesUpTo((1 << 22) - 1), description);
+                assertArrayEquals(between(4_000_000, (1 << 22) - 1), grown.primesForRange(4_000_000, (1 << 22) - 1),
+                        description);
+                assertEquals(1 << 22, grown.sievedUpTo(), description);
+                assertArrayEquals(REFERENCE, grown.cachedPrimes(), description);
+                assertThrows(IllegalArgumentException.class, () -> grown.primesForRange(2, 1 << 22), description);
+            }
+    }
+
+    @Test
+    void sievesWindowsBeyondTheMaximumWithoutGrowing() {
+        final OptimisedReadTimePrimeGenerator growing = OptimisedReadTimePrimeGenerator.builder()
+                .sieveSize(SIEVE_SIZE)
+                .growth(SieveGrowth.doubling(1 << 21))
+                .build();
+        assertArrayEquals(Arrays.stream(between(2_000_000, 3_000_000)).asLongStream().toArray(),
+                growing.primesForWindow(2_000_000, 3_000_000));
+        assertEquals(SIEVE_SIZE, growing.sievedUpTo());
+        assertThrows(IllegalArgumentException.class, () -> growing.primesForRange(2_000_000, 3_000_000));
+        assertEquals(SIEVE_SIZE, growing.sievedUpTo());
+    }
+
+    /**
+     * The reference primes in [start, end].
+     */
+    private static int[] between(final int start, final int end) {
+        final int from = Arrays.binarySearch(REFERENCE, start);
+        final int to = Arrays.binarySearch(REFERENCE, end);
+        return Arrays.copyOfRange(REFERENCE, from < 0 ? -from - 1 : from, to < 0 ? -to - 1 : to + 1);
+    }
+}
@@ -0,0 +1,205 @@
+package com.gds.service.prime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.springframework.util.Assert.state;
+
+/**
+ * Build time comparison of the sieve engines, run through the Maven <code>benchmark</code> profile. Each engine
+ * builds a generator at the requested sieve sizes (2^24, 2^28 and 2^31-1 by default) and the resulting caches are
+ * checked against each other before the timings are reported. The parallel engine is then timed at 2^28 with every
+ * parallelism from 1 to the number of available processors, reporting the speedup relative to a single thread.
+ * The segmented engine is also rebuilt with a rank/select backed cache and checked against the array cache.
+ * Prime counting beyond the sieve is timed against the known values of pi(10^k) for k = 10 to 14, and then
+ * the average cost of isPrime is measured over random positive 64 bit values, checked against BigInteger. Finally,
+ * windows of 2^24 values at 10^12, 10^15 and 10^18 are sieved both plainly and with buckets, checking that the two
+ * produce the same primes in the same order.
+ * <p/>
+ * Large sieve sizes need a correspondingly large heap, the profile runs with -Xmx8g.
+ * <p/>
+ */
+public class PrimeGeneratorBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PrimeGeneratorBenchmark.class);
+    private static final int[] DEFAULT_SIEVE_SIZES = {1 << 24, 1 << 28, Integer.MAX_VALUE};
+    private static final int SPEEDUP_SIEVE_SIZE = 1 << 28;
+    private static final int MAX_RANK_SELECT_SIEVE_SIZE = 1 << 28;
+    private static final int MAX_MONOLITHIC_SIEVE_SIZE = Integer.MAX_VALUE - 8;
+    private static final long[] KNOWN_PI_POWERS_OF_TEN = {455_052_511L, 4_118_054_813L, 37_607_912_018L,
+            346_065_536_839L, 3_204_941_750_802L};
+    private static final int FIRST_KNOWN_PI_EXPONENT = 10;
+    private static final int PRIMALITY_SAMPLES = 1 << 22;
+    private static final int PRIMALITY_CHECKS = 1 << 14;
+    private static final long[] WINDOW_STARTS = {1_000_000_000_000L, 1_000_000_000_000_000L,
+            1_000_000_000_000_000_000L};
+    private static final long WINDOW_WIDTH = 1 << 24;
+    private static final DecimalFormat FORMATTER = new DecimalFormat("###,###,###,###");
+
+    public static void main(final String[] args) {
+
+        final int[] sieveSizes = args.length == 0 ? DEFAULT_SIEVE_SIZES : parse(args);
+        OptimisedReadTimePrimeGenerator.builder().sieveSize(1 << 20).engine(SieveEngine.MONOLITHIC).build();
+        OptimisedReadTimePrimeGenerator.builder().sieveSize(1 << 20).engine(SieveEngine.SEGMENTED).build();
+
+        for (final int sieveSize : sieveSizes)
+            compareEngines(sieveSize);
+        speedupCurve(SPEEDUP_SIEVE_SIZE, Runtime.getRuntime().availableProcessors());
+        countKnownValues();
+        primalityCost();
+        windowSieving();
+    }
+
+    private static void compareEngines(final int sieveSize) {
+
+        int[] reference = null;
+        for (final SieveEngine engine : SieveEngine.values()) {
+            if (engine == SieveEngine.MONOLITHIC && sieveSize > MAX_MONOLITHIC_SIEVE_SIZE) {
+                LOG.info("sieveSize={} engine={} skipped, a single boolean[] cannot be allocated at this size.",
+                        FORMATTER.format(sieveSize), engine);
+                continue;
+            }
+
+            final long started = System.nanoTime();
+            final OptimisedReadTimePrimeGenerator generator = OptimisedReadTimePrimeGenerator.builder()
+                    .sieveSize(sieveSize)
+                    .engine(engine)
+                    .build();
+            final long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+            final int[] primes = generator.cachedPrimes();
+            if (reference == null)
+                reference = primes;
+            else
+                state(Arrays.equals(reference, primes), "Engine " + engine + " disagrees with the reference cache.");
+            LOG.info("sieveSize={} engine={} primes={} build(ms)={} retained(bytes)={}", FORMATTER.format(sieveSize),
+                    engine, FORMATTER.format(generator.cachedPrimeCount()), FORMATTER.format(elapsedMillis),
+                    FORMATTER.format(generator.retainedFootprintBytes()));
+        }
+
+        if (sieveSize <= MAX_RANK_SELECT_SIEVE_SIZE)
+            compareBacking(sieveSize, reference);
+    }
+
+    private static void compareBacking(final int sieveSize, final int[] reference) {
+
+        final long started = System.nanoTime();
+        final OptimisedReadTimePrimeGenerator generator = OptimisedReadTimePrimeGenerator.builder()
+                .sieveSize(sieveSize)
+                .parallelism(1)
+                .backing(CacheBacking.RANK_SELECT)
+                .build();
+        final long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        state(Arrays.equals(reference, generator.cachedPrimes()), "Rank/select cache disagrees with the array cache.");
+        LOG.info("sieveSize={} engine={} backing={} primes={} build(ms)={} retained(bytes)={}",
+                FORMATTER.format(sieveSize), SieveEngine.SEGMENTED, CacheBacking.RANK_SELECT,
+                FORMATTER.format(generator.cachedPrimeCount()), FORMATTER.format(elapsedMillis),
+                FORMATTER.format(generator.retainedFootprintBytes()));
+    }
+
+    private static void speedupCurve(final int sieveSize, final int maxParallelism) {
+
+        long singleThreadMillis = 0;
+        for (int parallelism = 1; parallelism <= maxParallelism; parallelism++) {
+            final long started = System.nanoTime();
+            OptimisedReadTimePrimeGenerator.builder()
+                    .sieveSize(sieveSize)
+                    .engine(SieveEngine.PARALLEL)
+                    .parallelism(parallelism)
+                    .build();
+            final long elapsedMillis = Math.max((System.nanoTime() - started) / 1_000_000, 1);
+            if (parallelism == 1)
+                singleThreadMillis = elapsedMillis;
+            LOG.info("sieveSize={} engine={} parallelism={} build(ms)={} speedup={}", FORMATTER.format(sieveSize),
+                    SieveEngine.PARALLEL, parallelism, FORMATTER.format(elapsedMillis),
+                    String.format("%.2f", (double) singleThreadMillis / elapsedMillis));
+        }
+    }
+
+    private static void countKnownValues() {
+
+        final OptimisedReadTimePrimeGenerator generator = new OptimisedReadTimePrimeGenerator();
+        long value = 1;
+        for (int exponent = 0; exponent < FIRST_KNOWN_PI_EXPONENT; exponent++)
+            value *= 10;
+
+        for (int index = 0; index < KNOWN_PI_POWERS_OF_TEN.length; index++, value *= 10) {
+            final long started = System.nanoTime();
+            final long count = generator.countPrimesUpTo(value);
+            final long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            state(count == KNOWN_PI_POWERS_OF_TEN[index], "pi(10^" + (FIRST_KNOWN_PI_EXPONENT + index) + ") was "
+                    + count + ", expected " + KNOWN_PI_POWERS_OF_TEN[index]);
+            LOG.info("pi(10^{})={} count(ms)={}", FIRST_KNOWN_PI_EXPONENT + index, FORMATTER.format(count),
+                    FORMATTER.format(elapsedMillis));
+        }
+    }
+
+    private static void primalityCost() {
+
+        final OptimisedReadTimePrimeGenerator generator = new OptimisedReadTimePrimeGenerator();
+        final Random random = new Random(PRIMALITY_SAMPLES);
+        final long[] values = new long[PRIMALITY_SAMPLES];
+        for (int index = 0; index < values.length; index++)
+            values[index] = random.nextLong() & Long.MAX_VALUE;
+
+        for (int index = 0; index < PRIMALITY_CHECKS; index++)
+            state(generator.isPrime(values[index]) == BigInteger.valueOf(values[index]).isProbablePrime(64),
+                    "isPrime disagrees with BigInteger for " + values[index]);
+
+        int primes = 0;
+        final long started = System.nanoTime();
+        for (final long value : values)
+            if (generator.isPrime(value))
+                primes++;
+        final long elapsedNanos = System.nanoTime() - started;
+        LOG.info("isPrime random 64 bit values={} primes={} average(ns)={}", FORMATTER.format(values.length),
+                FORMATTER.format(primes), FORMATTER.format(elapsedNanos / values.length));
+    }
+
+    private static void windowSieving() {
+
+        final OptimisedReadTimePrimeGenerator generator = new OptimisedReadTimePrimeGenerator();
+        for (final long start : WINDOW_STARTS) {
+            final long end = start + WINDOW_WIDTH - 1;
+            final BasePrimeTable basePrimes = generator.basePrimes(1L << 24)
+                    .extendTo(LucyPrimeCounter.squareRoot(end) + 1);
+            final long[] plain = sieveWindow(basePrimes, start, end, false);
+            final long[] bucket = sieveWindow(basePrimes, start, end, true);
+            state(plain[0] == bucket[0] && plain[1] == bucket[1],
+                    "Bucket sieving disagrees with plain sieving from " + start);
+            LOG.info("window from={} width={} primes={} plain(ms)={} bucket(ms)={} speedup={}",
+                    FORMATTER.format(start), FORMATTER.format(WINDOW_WIDTH), FORMATTER.format(plain[0]),
+                    FORMATTER.format(plain[2]), FORMATTER.format(bucket[2]),
+                    String.format("%.2f", (double) Math.max(plain[2], 1) / Math.max(bucket[2], 1)));
+        }
+    }
+
+    /**
+     * Sieves a window, returning the number of primes found, a hash of the sequence they were found in and the
+     * elapsed milliseconds.
+     */
+    private static long[] sieveWindow(final BasePrimeTable basePrimes, final long start, final long end,
+                                      final boolean bucketSieving) {
+        final long[] primes = {0, 0};
+        final long started = System.nanoTime();
+        new WindowSieve(basePrimes, WindowSieve.DEFAULT_SEGMENT_SIZE, bucketSieving).forEachPrime(start, end,
+                prime -> {
+                    primes[1] = 31 * primes[1] + prime;
+                    return ++primes[0] > 0;
+                });
+        return new long[]{primes[0], primes[1], (System.nanoTime() - started) / 1_000_000};
+    }
+
+    private static int[] parse(final String[] args) {
+        final int[] sieveSizes = new int[args.length];
+        for (int index = 0; index < args.length; index++)
+            sieveSizes[index] = Integer.parseInt(args[index]);
+        return sieveSizes;
+    }
+}
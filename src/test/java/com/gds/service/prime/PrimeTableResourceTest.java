@@ -0,0 +1,68 @@
+package com.gds.service.prime;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrimeTableResourceTest {
+
+    @Test
+    void roundTripsTablesEndingInAndBetweenBlocks() throws IOException {
+        for (final int limit : new int[]{0, 2, 3, 8_161, 8_162, 8_168, 100_000, 1 << 20}) {
+            final int[] primes = ReferenceSieve.primes(limit);
+            final SieveSnapshot snapshot = read(write(primes, limit));
+            assertEquals(limit, snapshot.limit);
+            assertArrayEquals(primes, snapshot.index.toArray(0, snapshot.index.size()), "below " + limit);
+            for (int value = 0; value < Math.min(limit, 10_000); value++)
+                assertEquals(Arrays.binarySearch(primes, value) >= 0, snapshot.bitmap.isPrime(value),
+                        "isPrime(" + value + ") below " + limit);
+        }
+    }
+
+    @Test
+    void loadsTheTableResourceOnTheClasspath() throws IOException {
+        final OptimisedReadTimePrimeGenerator generator = new OptimisedReadTimePrimeGenerator(
+                PrimeTableResource.DEFAULT_RESOURCE);
+        final int[] primes = ReferenceSieve.primes(generator.sievedUpTo());
+        assertArrayEquals(primes, generator.cachedPrimes());
+    }
+
+    @Test
+    void rejectsCorruptTables() throws IOException {
+        final byte[] table = write(ReferenceSieve.primes(10_000), 10_000);
+
+        final byte[] magic = table.clone();
+        magic[0] ^= 1;
+        assertTrue(assertThrows(IOException.class, () -> read(magic)).getMessage().startsWith("Not a prime table"));
+
+        final byte[] version = table.clone();
+        ByteBuffer.wrap(version).order(ByteOrder.LITTLE_ENDIAN).putInt(4, PrimeTableResource.VERSION + 1);
+        assertTrue(assertThrows(IOException.class, () -> read(version)).getMessage().startsWith("Unsupported"));
+
+        final byte[] trailing = Arrays.copyOf(table, table.length + 1);
+        assertTrue(assertThrows(IOException.class, () -> read(trailing)).getMessage().contains("trailing data"));
+
+        assertThrows(EOFException.class, () -> read(Arrays.copyOf(table, table.length - 1)));
+    }
+
+    private static byte[] write(final int[] primes, final int limit) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrimeTableResource.write(primes, limit, out);
+        return out.toByteArray();
+    }
+
+    private static SieveSnapshot read(final byte[] table) throws IOException {
+        return PrimeTableResource.read(new ByteArrayInputStream(table), "test table");
+    }
+}
@@ -0,0 +1,66 @@
+package com.gds.service.prime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RankSelectPrimeIndexTest {
+
+    /**
+     * Limits either side of the 128 values covered by a bitmap word and the 1,024 covered by a checkpoint block.
+     */
+    private static final int[] LIMITS = {0, 1, 2, 3, 4, 127, 128, 129, 1_023, 1_024, 1_025, 2_047, 2_048, 2_049,
+            10_240, 65_536, 70_001};
+
+    @Test
+    void ranksEveryValue() {
+        for (final int limit : LIMITS) {
+            final int[] primes = ReferenceSieve.primes(limit);
+            final RankSelectPrimeIndex index = index(limit, primes);
+            assertEquals(primes.length, index.size(), "size below " + limit);
+            int count = 0;
+            for (int value = -1; value < limit + 1_100; value++) {
+                if (value >= 0 && count < primes.length && primes[count] == value)
+                    count++;
+                assertEquals(count, index.rank(value), "rank(" + value + ") below " + limit);
+            }
+        }
+    }
+
+    @Test
+    void selectsEveryIndex() {
+        for (final int limit : LIMITS) {
+            final int[] primes = ReferenceSieve.primes(limit);
+            final RankSelectPrimeIndex index = index(limit, primes);
+            for (int position = 0; position < primes.length; position++)
+                assertEquals(primes[position], index.primeAt(position), "primeAt(" + position + ") below " + limit);
+            assertThrows(IndexOutOfBoundsException.class, () -> index.primeAt(-1));
+            assertThrows(IndexOutOfBoundsException.class, () -> index.primeAt(primes.length));
+        }
+    }
+
+    @Test
+    void copiesRangesAcrossBlockEdges() {
+        final int[] primes = ReferenceSieve.primes(70_001);
+        final RankSelectPrimeIndex index = index(70_001, primes);
+        for (final int edge : new int[]{0, 1, 2, 172, 173, 174, 309, 310, 311, primes.length - 1, primes.length})
+            for (final int width : new int[]{0, 1, 2, 63, 64, 65, 600})
+                for (final int fromIndex : new int[]{edge - width, edge}) {
+                    final int toIndex = Math.min(fromIndex + width, primes.length);
+                    if (fromIndex < 0 || fromIndex > toIndex)
+                        continue;
+                    final int[] expected = Arrays.copyOfRange(primes, fromIndex, toIndex);
+                    assertArrayEquals(expected, index.toArray(fromIndex, toIndex), fromIndex + ".." + toIndex);
+                    assertArrayEquals(expected, index.stream(fromIndex, toIndex).toArray(), fromIndex + ".." + toIndex);
+                }
+        assertThrows(IndexOutOfBoundsException.class, () -> index.toArray(0, primes.length + 1));
+    }
+
+    private static RankSelectPrimeIndex index(final int limit, final int[] primes) {
+        return new RankSelectPrimeIndex(new OddPrimeBitmap(limit, primes));
+    }
+}
@@ -0,0 +1,29 @@
+package com.gds.service.prime;
+
+import java.util.stream.IntStream;
+
+/**
+ * A plain sieve of Eratosthenes over a boolean per integer, independent of the production sieves it checks.
+ */
+final class ReferenceSieve {
+
+    private ReferenceSieve() {
+    }
+
+    static boolean[] primality(final int limit) {
+
+        final boolean[] prime = new boolean[limit];
+        for (int value = 2; value < limit; value++)
+            prime[value] = true;
+        for (long factor = 2; factor * factor < limit; factor++)
+            if (prime[(int) factor])
+                for (long multiple = factor * factor; multiple < limit; multiple += factor)
+                    prime[(int) multiple] = false;
+        return prime;
+    }
+
+    static int[] primes(final int limit) {
+        final boolean[] prime = primality(limit);
+        return IntStream.range(0, limit).filter(value -> prime[value]).toArray();
+    }
+}
@@ -0,0 +1,88 @@
+package com.gds.service.prime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SieveSnapshotFileTest {
+
+    private static final int SIEVE_SIZE = 1_000_003;
+    private static final int[] REFERENCE = ReferenceSieve.primes(SIEVE_SIZE);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mapsWhatEachBackingWrites() throws IOException {
+        final OptimisedReadTimePrimeGenerator[] built = {
+                OptimisedReadTimePrimeGenerator.builder().sieveSize(SIEVE_SIZE).build(),
+                OptimisedReadTimePrimeGenerator.builder().sieveSize(SIEVE_SIZE).backing(CacheBacking.RANK_SELECT)
+                        .build(),
+                OptimisedReadTimePrimeGenerator.builder().sieveSize(SIEVE_SIZE).engine(SieveEngine.WHEEL).build()};
+        for (int written = 0; written < built.length; written++) {
+            final Path file = directory.resolve("snapshot-" + written);
+            built[written].writeSnapshot(file);
+            final OptimisedReadTimePrimeGenerator mapped = new OptimisedReadTimePrimeGenerator(file);
+            assertEquals(SIEVE_SIZE, mapped.sievedUpTo(), file.toString());
+            assertArrayEquals(REFERENCE, mapped.cachedPrimes(), file.toString());
+            for (int value = 0; value < SIEVE_SIZE; value += 7)
+                assertEquals(Arrays.binarySearch(REFERENCE, value) >= 0, mapped.isPrime(value),
+                        "isPrime(" + value + ")");
+            assertEquals(REFERENCE.length, mapped.countPrimesUpTo(SIEVE_SIZE - 1), file.toString());
+            assertArrayEquals(new int[]{999_953, 999_959, 999_961, 999_979, 999_983},
+                    mapped.primesForRange(999_950, SIEVE_SIZE - 1), file.toString());
+            assertEquals(Arrays.asList(2, 3, 5, 7), mapped.harvestPrimesUpToValue(10), file.toString());
+            assertArrayEquals(Arrays.copyOfRange(REFERENCE, 1_000, 2_000),
+                    mapped.primeStreamForRange(REFERENCE[1_000], REFERENCE[1_999]).toArray(), file.toString());
+        }
+    }
+
+    @Test
+    void rejectsAFlippedByteAnywhereInTheBody() throws IOException {
+        final Path file = write();
+        final byte[] snapshot = Files.readAllBytes(file);
+        for (final int position : new int[]{32, 100, snapshot.length / 2, snapshot.length - 1}) {
+            final byte[] flipped = snapshot.clone();
+            flipped[position] ^= 0x10;
+            assertTrue(rejected(flipped).startsWith("Sieve snapshot checksum mismatch"), "byte " + position);
+        }
+    }
+
+    @Test
+    void rejectsTruncatedAndForeignFiles() throws IOException {
+        final byte[] snapshot = Files.readAllBytes(write());
+        assertTrue(rejected(Arrays.copyOf(snapshot, snapshot.length - 4)).startsWith("Sieve snapshot is truncated"));
+        assertTrue(rejected(Arrays.copyOf(snapshot, snapshot.length + 1)).startsWith("Sieve snapshot is truncated"));
+        assertTrue(rejected(Arrays.copyOf(snapshot, 20)).startsWith("Not a sieve snapshot"));
+
+        final byte[] foreign = snapshot.clone();
+        foreign[0] ^= 1;
+        assertTrue(rejected(foreign).startsWith("Not a sieve snapshot"));
+        final byte[] version = snapshot.clone();
+        version[4] = (byte) (SieveSnapshotFile.VERSION + 1);
+        assertTrue(rejected(version).startsWith("Unsupported sieve snapshot version"));
+    }
+
+    private Path write() throws IOException {
+        final Path file = directory.resolve("snapshot");
+        new OptimisedReadTimePrimeGenerator(100_000).writeSnapshot(file);
+        return file;
+    }
+
+    /**
+     * The message the snapshot is rejected with when mapped.
+     */
+    private String rejected(final byte[] snapshot) throws IOException {
+        final Path file = Files.write(directory.resolve("damaged"), snapshot);
+        return assertThrows(IOException.class, () -> SieveSnapshotFile.map(file)).getMessage();
+    }
+}